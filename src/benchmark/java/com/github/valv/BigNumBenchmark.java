@@ -0,0 +1,183 @@
+/*
+ * @(#)BigNumBenchmark.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+package com.github.valv;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.valv.RandomDigits.randomDigits;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * BigNumBenchmark class provides JMH benchmarks of BigNum and BigSNum
+ * arithmetic side by side with java.math.BigInteger. Operands are random
+ * numbers of the given number of digits in the given radix, the minuend is
+ * the larger one and the dividend is twice as long as the divisor. BigNum
+ * methods change the receiver, so every call works on a fresh copy
+ * (BigInteger allocates its result as well), and the string cache is
+ * dropped before toString is timed.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BigNumBenchmark {
+  @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+  public int digits;
+
+  @Param({"10", "16"})
+  public byte radix;
+
+  private String text;
+  private BigNum number1, number2, dividend;
+  private BigSNum signed1, signed2;
+  private BigInteger integer1, integer2, integerDividend;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(digits * 37 + radix);
+    String digits1 = randomDigits(random, digits, radix);
+    String digits2 = randomDigits(random, digits, radix);
+    String digitsDividend = randomDigits(random, 2 * digits, radix);
+    if (new BigInteger(digits1, radix).compareTo(
+        new BigInteger(digits2, radix)) < 0) { // keep differences positive
+      String swap = digits1;
+      digits1 = digits2;
+      digits2 = swap;
+    }
+    this.text = digits1;
+    this.number1 = new BigNum(digits1, radix);
+    this.number2 = new BigNum(digits2, radix);
+    this.dividend = new BigNum(digitsDividend, radix);
+    this.signed1 = new BigSNum("-" + digits1, radix);
+    this.signed2 = new BigSNum(digits2, radix);
+    this.integer1 = new BigInteger(digits1, radix);
+    this.integer2 = new BigInteger(digits2, radix);
+    this.integerDividend = new BigInteger(digitsDividend, radix);
+  }
+
+  /* BigNum */
+
+  @Benchmark
+  public BigNum add() {
+    BigNum sum = new BigNum(this.number1);
+    sum.add(this.number2);
+    return sum;
+  }
+
+  @Benchmark
+  public BigNum subtract() {
+    BigNum difference = new BigNum(this.number1);
+    difference.subtract(this.number2);
+    return difference;
+  }
+
+  @Benchmark
+  public BigNum multiply() {
+    BigNum product = new BigNum(this.number1);
+    product.multiply(this.number2);
+    return product;
+  }
+
+  @Benchmark
+  public BigNum divide() {
+    BigNum quotient = new BigNum(this.dividend);
+    quotient.divide(this.number1);
+    return quotient;
+  }
+
+  @Benchmark
+  public String format() {
+    this.number1.text = null; // drop the cached string
+    return this.number1.toString();
+  }
+
+  @Benchmark
+  public BigNum parse() {
+    return new BigNum(this.text, this.radix);
+  }
+
+  @Benchmark
+  public BigSNum addSigned() {
+    BigSNum sum = new BigSNum(this.signed1);
+    sum.add(this.signed2);
+    return sum;
+  }
+
+  /* BigInteger baseline */
+
+  @Benchmark
+  public BigInteger addBaseline() {
+    return this.integer1.add(this.integer2);
+  }
+
+  @Benchmark
+  public BigInteger subtractBaseline() {
+    return this.integer1.subtract(this.integer2);
+  }
+
+  @Benchmark
+  public BigInteger multiplyBaseline() {
+    return this.integer1.multiply(this.integer2);
+  }
+
+  @Benchmark
+  public BigInteger[] divideBaseline() {
+    return this.integerDividend.divideAndRemainder(this.integer1);
+  }
+
+  @Benchmark
+  public String formatBaseline() {
+    return this.integer1.toString(this.radix);
+  }
+
+  @Benchmark
+  public BigInteger parseBaseline() {
+    return new BigInteger(this.text, this.radix);
+  }
+
+  @Benchmark
+  public BigInteger addSignedBaseline() {
+    return this.integer1.negate().add(this.integer2);
+  }
+}
+
+/* vim: set si et ts=2 sw=2: */
@@ -23,12 +23,25 @@
 
 package com.github.valv;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * BigNum class provides basics for arbitrary precision arithmetic.
  * This class implements unsigned integer radix arithmetic.
+ * The value is stored as little-endian 32 bit limbs (base 2^32), the radix
+ * matters for parsing and string conversion only, so numbers of different
+ * radices mix freely (result keeps the radix of this).
  *
  * @version 1.1 20 Nov 2017
  * @author Vladimir Valeyev
@@ -39,15 +52,60 @@ public class BigNum {
   static final byte RADIX_MIN = 2;
   static final String RADIX_SYMBOL = "0123456789abcdefghijklmnopqrstuvwxyz";
 
+  static final long LIMB_MASK = 0xffffffffL; // unsigned value of a limb
+  static final int LIMB_BITS = 32;
+  static final int SIZE_INFINITY = -1; // size of the infinity value
+
+  // Operand size (in limbs) where multiplication switches algorithm
+  static final int KARATSUBA_THRESHOLD = 80;
+  static final int KARATSUBA_SQUARE_THRESHOLD = 160;
+  static final int TOOM_COOK_3_THRESHOLD = 480;
+  static final int TOOM_COOK_4_THRESHOLD = 4000;
+  static final int NTT_THRESHOLD = 6000;
+
+  // Operand size (in limbs) where parallel multiplication forks tasks
+  static final int PARALLEL_THRESHOLD = 1000;
+
+  // Divisor size (in limbs) and quotient size where division gets recursive
+  static final int BURNIKEL_ZIEGLER_THRESHOLD = 80;
+  static final int BURNIKEL_ZIEGLER_OFFSET = 40;
+
+  // Binary form: version, flags, radix hint, limb count and limbs (integers
+  // are little-endian)
+  static final byte BINARY_VERSION = 1;
+  static final int BINARY_HEADER = 7; // bytes before limbs
+  static final byte FLAG_NEGATIVE = 1;
+  static final byte FLAG_NULL = 2;
+  static final byte FLAG_INFINITY = 4;
+
+  // Largest power of a radix that fits a positive int and its exponent
+  static final int[] CHUNK_POWER = new int[RADIX_MAX + 1];
+  static final int[] CHUNK_DIGITS = new int[RADIX_MAX + 1];
+
+  static {
+    for (int radix = RADIX_MIN; radix <= RADIX_MAX; radix ++) {
+      long power = radix;
+      int digits = 1;
+      while (power * radix <= Integer.MAX_VALUE) {
+        power *= radix;
+        digits ++;
+      }
+      CHUNK_POWER[radix] = (int) power;
+      CHUNK_DIGITS[radix] = digits;
+    }
+  }
+
   protected byte radix = RADIX_DEFAULT;
-  protected int length = 0;
-  protected ArrayList<Byte> data;
+  protected int size = 0; // limbs in use (zero has none), -1 for infinity
+  protected int[] data; // limbs, least significant first (null for null)
+  protected String text; // cached digits (null when value changes)
+  protected byte textRadix; // radix of cached digits
 
   /* Constructors */
 
   // Default constructor
   public BigNum() {
-    this.data = new ArrayList<Byte>(this.length);
+    this.data = null; // null (undefined) value
   }
 
   // Integer constructor
@@ -57,17 +115,10 @@ public class BigNum {
 
   // Integer/radix constructor
   public BigNum(int number, byte radix) {
-    radix = (radix > this.RADIX_MAX) ? this.RADIX_MAX : radix; // trim radix
-    radix = (radix < this.RADIX_MIN) ? this.RADIX_MIN : radix; // trim radix
-    if (number < 0) number = -number; // only positive
-    this.radix = radix;
-    this.data = new ArrayList<Byte>(this.length);
-    do {
-      // Add digits to the array
-      this.data.add((byte) (number % radix));
-      number /= radix;
-    } while (number > 0);
-    this.length = this.data.size();
+    this.radix = trimRadix(radix);
+    long value = Math.abs((long) number); // only positive
+    this.data = new int[1];
+    if (value > 0) this.data[this.size ++] = (int) value;
   }
 
   // String constructor
@@ -75,353 +126,1269 @@ public class BigNum {
     this(number, BigNum.RADIX_DEFAULT); // default radix is 10
   }
 
-  // String/radix constructor
+  // String/radix constructor (characters that are not digits of the radix
+  // are skipped as separators, so "1 000" gives 1000 and "12a" gives 12)
   public BigNum(String number, byte radix) {
-    radix = (radix > this.RADIX_MAX) ? this.RADIX_MAX : radix; // trim radix
-    radix = (radix < this.RADIX_MIN) ? this.RADIX_MIN : radix; // trim radix
-    number = number.toLowerCase();
-    this.radix = radix;
-    this.data = new ArrayList<Byte>(this.length);
-    int digit = 0;
-    for (int position = number.length() - 1; position >= 0; position --) {
-      // Add digit's value to the array
-      digit =  this.RADIX_SYMBOL.indexOf(number.charAt(position));
-      if (digit >= 0) {
-        this.data.add((byte) digit);
-      }
-    }
-    this.length = this.data.size();
+    this.radix = trimRadix(radix);
+    byte[] digits = RadixConversion.digits(number, this.radix);
+    if (digits.length == 0) return; // no digits at all -> null
+    this.data = RadixConversion.parse(digits, 0, digits.length, this.radix);
+    this.size = this.data.length;
+    if (this.size == 0) this.data = new int[1];
   }
 
   // Object (BigNum) constructor
   public BigNum(BigNum number) {
+    number = number.onHeap();
     this.radix = number.radix;
-    this.length = number.length;
-    this.data = new ArrayList<Byte>(this.length);
-    for (byte digit: number.data) { // deep copy
-      this.data.add(digit);
+    this.size = number.size;
+    if (number.data != null) { // deep copy
+      this.data = Arrays.copyOf(number.data, Math.max(number.size, 1));
     }
+    this.text = number.text; // strings are immutable, share the cache
+    this.textRadix = number.textRadix;
+    number.releaseLimbs();
+  }
+
+  // Limbs constructor (takes ownership of the array)
+  BigNum(int[] data, int size, byte radix) {
+    this.radix = radix;
+    this.data = data;
+    this.size = size;
+    this.normalize();
   }
 
   /* Public methods */
 
   // Addition method
   public void add(BigNum number) {
-    if (this.length < 1 || number.length < 1) return;
-    if (number.length == 1 && number.data.get(0) <= 0) return;
-    int index = 0, carry = 0;
-    if (this.compare(number) > 0) { // 'this' > 'number'
-      for (; index < number.length; index ++) {
-        carry += number.data.get(index);
-        carry += this.data.get(index);
-        this.data.set(index, (byte) (carry % this.radix));
-        carry /= this.radix;
-      } // sum carry with both arrays' values
-      while (carry > 0) {
-        if (index < this.length) { // in the array bounds
-          carry += this.data.get(index);
-          this.data.set(index ++, (byte) (carry % this.radix));
-        } else { // out of the array bounds
-          this.data.add((byte) (carry % this.radix));
-          this.length ++;
-        }
-        carry /= this.radix;
-      } // sum carry with the largest ('this') array's values
-    } else { // 'this' <= 'number'
-      for (; index < this.length; index ++) {
-        carry += this.data.get(index);
-        carry += number.data.get(index);
-        this.data.set(index, (byte) (carry % this.radix));
-        carry /= this.radix;
-      } // sum carry with both arrays' values
-      while (carry > 0 || this.length < number.length) {
-        if (this.length < number.length) { // in the array bounds
-          carry += number.data.get(this.length);
-        }
-        this.data.add((byte) (carry % this.radix));
-        this.length ++;
-        carry /= this.radix;
-      } // sum carry with the largest ('number') array's values
+    if (number.isOffHeap()) { // work on a heap copy of parked limbs
+      BigNum copy = number.onHeap();
+      this.add(copy);
+      copy.releaseLimbs();
+      return;
+    }
+    this.text = null; // value changes
+    if (this.data == null || number.data == null) return;
+    if (number.size == 0) return; // x + 0 = x
+    if (this.size < 0 || number.size < 0) { // x + infinity = infinity
+      this.setInfinity();
+      return;
     }
+    int index = Math.min(this.size, number.size);
+    this.ensureCapacity(Math.max(this.size, number.size) + 1);
+    long carry = LimbKernels.KERNELS.add(this.data, 0, number.data, 0, index,
+        0); // sum carry with both arrays' values
+    for (; index < number.size; index ++) {
+      carry += number.data[index] & LIMB_MASK;
+      this.data[index] = (int) carry;
+      carry >>>= LIMB_BITS;
+    } // sum carry with the rest of 'number' array's values
+    for (; carry != 0 && index < this.size; index ++) {
+      carry += this.data[index] & LIMB_MASK;
+      this.data[index] = (int) carry;
+      carry >>>= LIMB_BITS;
+    } // sum carry with the rest of 'this' array's values
+    if (index > this.size) this.size = index;
+    if (carry != 0) this.data[this.size ++] = (int) carry;
   }
 
   // Subtraction method
   public void subtract(BigNum number) {
-    // Filter numbers that can not be processed (yet)
-    if (this.length < 1 || number.length < 1 || this.radix != number.radix) {
+    if (number.isOffHeap()) { // work on a heap copy of parked limbs
+      BigNum copy = number.onHeap();
+      this.subtract(copy);
+      copy.releaseLimbs();
+      return;
+    }
+    this.text = null; // value changes
+    // Filter numbers that can not be processed
+    if (this.data == null || number.data == null) {
       return;
     }
     // Subtract zero - axiom: x - 0 = x
-    if (number.length == 1 && number.data.get(0) <= 0) {
+    if (number.size == 0) {
       return;
     }
     // Return zero if subtrahend explicitly larger than minuend
     if (this.compare(number) <= 0) {
-      this.data = new ArrayList<Byte>(); // old ArrayList will be GCed
-      this.data.add((byte) ((this.length = 1) - 1));
+      this.setZero();
       return;
     }
-    int index = 0, carry = 0;
-    // Cycle through subtrahend number (it has less digits)
-    for (; index < number.length; index ++) {
-      carry += this.data.get(index) + this.radix; // push radix
-      carry -= number.data.get(index);
-      this.data.set(index, (byte) (carry % this.radix));
-      carry /= this.radix;
-      carry -= 1; // pop radix
-    }
-    // Cycle through the rest of minuend number (it has more digits)
-    for (; index < this.length && carry != 0; index ++) {
-      carry += this.data.get(index) + this.radix; // push radix
-      this.data.set(index, (byte) (carry % this.radix));
-      carry /= this.radix;
-      carry -= 1; // pop radix
+    // Infinity minus any finite number remains infinity
+    if (this.size < 0) {
+      return;
     }
+    subtractFrom(this.data, this.size, number.data, number.size);
     // Remove leading zeroes
-    while (this.length > 1 && this.data.get(this.length - 1) <= 0) {
-      this.data.remove(-- this.length);
-    }
-    // Trim list of digits (assume any garbage)
-    this.data.trimToSize();
+    this.normalize();
   }
 
   // Multiplication method
   public void multiply(BigNum number) {
-    // Filter numbers that can not be processed (yet)
-    if (this.length < 1 || number.length < 1 || this.radix != number.radix) {
+    if (number == this) { // x * x
+      this.square();
       return;
     }
-    // Handle special cases: 0, -1, x
-    if (this.length == 1 || number.length == 1) {
-      byte thisDigit = this.data.get(0);
-      byte thatDigit = number.data.get(0);
-      if ((thisDigit <= 0 && this.length == 1)
-          || (thatDigit <= 0 && number.length == 1)) {
-        this.data = new ArrayList<Byte>(); // old ArrayList will be GCed
-        if (thisDigit == 0 || thatDigit == 0) {
-          // Product is zero when multiplicand or multiplier is zero
-          this.data.add((byte) 0);
-        } else {
-          // Product is infinity when multiplicand or multiplier is infinity
-          this.data.add((byte) -1);
-        }
-        return; // 0 and -1 cases
-      }
-      if (number.length == 1) {
-        // Multiply by one-digit number
-        this.multiplyByDigit(thatDigit);
-        return; // x case
-      }
+    if (number.isOffHeap()) { // work on a heap copy of parked limbs
+      BigNum copy = number.onHeap();
+      this.multiply(copy);
+      copy.releaseLimbs();
+      return;
     }
-    // Multiply long numbers (log-space algorithm)
-    int it = 0, in = 0, ip = 0; // indicies for this, number, product
-    long total = 0;
-    ArrayList<Byte> product;
-    product = new ArrayList<Byte>(this.length + number.length);
-    for (ip = 0; ip < (this.length + number.length) - 1; ip ++) {
-      for (in = Math.max(0, ip - (this.length - 1));
-          in <= Math.min(ip, (number.length - 1)); in ++) {
-        it = ip - in;
-        total += this.data.get(it) * number.data.get(in);
-      }
-      product.add((byte) (total % this.radix));
-      total /= this.radix;
+    this.text = null; // value changes
+    // Filter numbers that can not be processed
+    if (this.data == null || number.data == null) {
+      return;
     }
-    product.add((byte) (total % this.radix));
-    // Remove leading zeroes
-    while (ip > 0 && product.get(ip) <= 0) {
-      product.remove(ip --);
+    // Handle special cases: 0, infinity, x
+    if (this.size == 0 || number.size == 0) {
+      // Product is zero when multiplicand or multiplier is zero
+      this.setZero();
+      return;
+    }
+    if (this.size < 0 || number.size < 0) {
+      // Product is infinity when multiplicand or multiplier is infinity
+      this.setInfinity();
+      return;
+    }
+    if (number.size == 1) {
+      // Multiply by one-limb number
+      this.multiplyAddWord(number.data[0], 0);
+      return;
     }
-    // Trim list of digits (assume any garbage)
-    product.trimToSize();
+    int[] product = new int[this.size + number.size];
+    multiply(this.data, this.size, number.data, number.size, product);
     this.data = product;
-    this.length = this.data.size();
+    this.size = product.length;
+    this.normalize();
   }
 
-  // Division method
+  // Squaring method: this = this * this (symmetric cross products are
+  // computed once)
+  public void square() {
+    this.text = null; // value changes
+    // Filter numbers that can not be processed, 0 and infinity remain
+    if (this.data == null || this.size <= 0) {
+      return;
+    }
+    if (this.size == 1) {
+      this.multiplyAddWord(this.data[0], 0);
+      return;
+    }
+    int[] product = new int[2 * this.size];
+    square(this.data, this.size, product);
+    this.data = product;
+    this.size = product.length;
+    this.normalize();
+  }
+
+  // Parallel multiplication method (common fork/join pool)
+  public void parallelMultiply(BigNum number) {
+    this.multiplyInPool(number, ForkJoinPool.commonPool(),
+        PARALLEL_THRESHOLD);
+  }
+
+  // Parallel multiplication method on the given pool (its parallelism
+  // limits the number of threads), products of operands shorter than
+  // the cutoff (in digits) are computed sequentially
+  public void parallelMultiply(BigNum number, ForkJoinPool pool,
+      int cutoff) {
+    this.multiplyInPool(number, pool,
+        limbsForDigits(Math.max(cutoff, 1), this.radix));
+  }
+
+  // Division method: the quotient goes to this, the remainder is returned.
+  // Any division by zero gives the undefined value (null), as does
+  // infinity by infinity, and a divisor larger than the dividend gives
+  // quotient zero with the dividend as the remainder (so that quotient *
+  // divisor + remainder = dividend always holds)
   public BigNum divide(BigNum number) {
-    // Filter numbers that can not be processed (yet)
-    if (this.length < 1 || number.length < 1 || this.radix != number.radix) {
-      return new BigNum(0); // return zero (useless object generator)
-    }
-    if (this.length == 1 || number.length == 1) {
-      byte thisDigit = this.data.get(0);
-      byte thatDigit = number.data.get(0);
-      if ((thisDigit <= 0 && this.length == 1)
-          || (thatDigit <= 0 && number.length == 1)) {
-        this.data = new ArrayList<Byte>(); // old ArrayList will be GCed
-        this.length = 0;
-        if (thisDigit != -1  && thatDigit == -1) {
-          // Divide anything except infinity by infinity -> zero
-          this.data.add((byte) ((this.length = 1) - 1));
-        }
-        if (thisDigit != 0 && thatDigit == 0) {
-          // Divide anything except zero by zero -> infinity
-          this.data.add((byte) -(this.length = 1));
-        }
-        if (thisDigit == -1 && thatDigit > -1) {
-          // Divide infinity by anything except infinity -> infinity
-          this.data.add((byte) -(this.length = 1));
-        }
-        if (thisDigit == 0 && thatDigit > 0) {
-          // Divide zero by anything except zero -> zero
-          this.data.add((byte) ((this.length = 1) - 1));
-        }
-        return new BigNum(0); // return zero
-      }
-      if (number.length == 1) {
-        // Call division by a digit
-        byte remainder = this.divideByDigit(thatDigit);
-        return new BigNum(remainder);
-      }
+    return this.divide(number, new BigNum());
+  }
+
+  // Division method with a reusable remainder: the quotient goes to this,
+  // the remainder goes to the given object, which limbs are also used as
+  // the scratch buffer, so repeated divisions (below Burnikel-Ziegler
+  // sizes) do not allocate once the buffer is large enough
+  public BigNum divide(BigNum number, BigNum remainder) {
+    if (remainder == this || remainder == number) {
+      remainder = new BigNum(); // operands can not hold the remainder
+    }
+    if (number.isOffHeap()) { // work on a heap copy of parked limbs
+      BigNum copy = number.onHeap();
+      remainder = this.divide(copy, remainder);
+      copy.releaseLimbs();
+      return remainder;
+    }
+    remainder.radix = this.radix;
+    remainder.setZero();
+    this.text = null; // value changes
+    // Filter numbers that can not be processed
+    if (this.data == null || number.data == null) {
+      return remainder; // return zero
+    }
+    if (number.size == 0 || (this.size < 0 && number.size < 0)) {
+      // Divide by zero or infinity by infinity -> undefined (null)
+      this.data = null;
+      this.size = 0;
+      return remainder;
+    }
+    if (this.size < 0 || this.size == 0) {
+      // Divide infinity or zero by a finite non-zero -> the same value
+      return remainder;
+    }
+    if (number.size < 0) {
+      // Divide anything except infinity by infinity -> zero
+      this.setZero();
+      return remainder;
+    }
+    if (number.size == 1) {
+      // Call division by a limb
+      remainder.data[remainder.size ++] = this.divideWord(number.data[0]);
+      remainder.normalize();
+      return remainder;
     }
     int comparison = this.compare(number);
     if (comparison < 0) {
-      // Divisor > divident -> quotient = 0, remainder = divisor
-      this.data = new ArrayList<Byte>();
-      this.data.add((byte) ((this.length = 1) - 1)); // set to zero
-      return (number); // return divisor
+      // Divisor > dividend -> quotient = 0, remainder = dividend
+      remainder.ensureCapacity(this.size);
+      System.arraycopy(this.data, 0, remainder.data, 0, this.size);
+      remainder.size = this.size;
+      this.setZero();
+      return remainder;
     }
     if (comparison == 0) {
       // Divisor is equal to the divident ->
       // quitient = 1, remainder = 0
-      this.data = new ArrayList<Byte>();
-      this.data.add((byte) (this.length = 1)); // set to one
-      return new BigNum(0); // return zero
-    }
-    // At this time divisor is at least 2 digits long (as well as dividend)
-    int n = number.length;
-    int m = this.length - number.length;
-    BigNum divident = this;
-    BigNum divisor = new BigNum(number);
-    BigNum remainder = new BigNum();
-    remainder.radix = this.radix;
-    ArrayList<Byte> quotient = new ArrayList<Byte>();
-    // D1
-    int normalizer = (divident.radix - 1) / divisor.data.get(n - 1);
-    divident.multiplyByDigit((byte) normalizer);
-    if (divident.length == m + n) { // normalizer == 1
-      divident.data.add((byte) 0);
-      divident.length ++;
-    }
-    divisor.multiplyByDigit((byte) normalizer);
-    // D2
-    int subDivident = 0, subSubDivident = 0;
-    int subDivisor =  divisor.data.get(n - 1);
-    int subSubDivisor = divisor.data.get(n - 2);
-    int testQ, testR;
-    for (int j = m; j >= 0; j --) {
-      // D3
-      subDivident = divident.data.get(j + n) * divident.radix;
-      subDivident += divident.data.get(j + n - 1);
-      subSubDivident = divident.data.get(j + n - 2);
-      testQ = subDivident / subDivisor;
-      testR = subDivident % subDivisor;
-      if (testQ == divident.radix || (testQ * subSubDivisor
-            > testR * divident.radix + subSubDivident)) {
-        do {
-          testQ --;
-          testR += subDivisor;
-        } while (testR < divident.radix);
-      }
-      // D4 (avoid D6)
-      BigNum testDivident = new BigNum();
-      List<Byte> dividentSubList = divident.data.subList(j, j + n + 1);
-      testDivident.data = new ArrayList<Byte>(dividentSubList);
-      testDivident.length = testDivident.data.size();
-      BigNum testDivisor = new BigNum(divisor);
-      testDivisor.multiplyByDigit((byte) testQ);
-      int carry = 0, total = 0, product = 0;
-      if (testDivident.compare(testDivisor) < 0) testQ --; // -D6
-      for (int i = 0; i < n; i ++) {
-        product = divisor.data.get(i) * testQ;
-        total = divident.radix + divident.data.get(j + i) + carry;
-        total -= product % divident.radix;
-        divident.data.set(j + i,
-            (byte) Math.abs(total % divident.radix));
-        carry = total / divident.radix - 1 - (product / divident.radix);
+      this.setZero();
+      this.data[this.size ++] = 1; // set to one
+      return remainder; // return zero
+    }
+    // At this time divisor is at least 2 limbs long (as well as dividend)
+    int n = number.size;
+    int m = this.size - number.size;
+    if (n >= BURNIKEL_ZIEGLER_THRESHOLD && m >= BURNIKEL_ZIEGLER_OFFSET) {
+      int[] quotient = new int[m + 1];
+      int[] rest = divide(this.data, this.size, number.data, n, quotient);
+      this.data = quotient;
+      this.size = quotient.length;
+      this.normalize();
+      remainder.data = Arrays.copyOf(rest, Math.max(rest.length, 1));
+      remainder.size = rest.length;
+      return remainder;
+    }
+    // Remainder limbs keep normalized dividend (m + n + 1) and divisor (n),
+    // limbs of this are free to take the quotient back to front
+    int normalizer = Integer.numberOfLeadingZeros(number.data[n - 1]);
+    remainder.ensureCapacity(m + 2 * n + 1);
+    int[] scratch = remainder.data;
+    scratch[m + n] = shiftLeftBits(this.data, m + n, normalizer, scratch);
+    shiftLeftBits(number.data, n, normalizer, scratch, m + n + 1);
+    divideNormalized(scratch, m, scratch, m + n + 1, n, this.data);
+    shiftRightBits(scratch, n + 1, normalizer, scratch, n);
+    remainder.size = n;
+    remainder.normalize();
+    this.size = m + 1;
+    this.normalize();
+    return remainder;
+  }
+
+  // Modular exponentiation method: this = this^exponent mod modulus
+  // (Montgomery multiplication with sliding windows for odd moduli)
+  public void modPow(BigNum exponent, BigNum modulus) {
+    if (exponent.isOffHeap() || modulus.isOffHeap()) { // heap copies
+      BigNum exponentCopy = exponent.onHeap();
+      BigNum modulusCopy = modulus.onHeap();
+      this.modPow(exponentCopy, modulusCopy);
+      exponentCopy.releaseLimbs();
+      modulusCopy.releaseLimbs();
+      return;
+    }
+    this.text = null; // value changes
+    // Filter numbers that can not be processed
+    if (this.data == null || exponent.data == null || modulus.data == null) {
+      return;
+    }
+    if (modulus.size <= 0 || this.size < 0 || exponent.size < 0) {
+      // Modulus zero or infinity, infinite operands -> undefined (null)
+      this.data = null;
+      this.size = 0;
+      return;
+    }
+    boolean unit = modulus.size == 1 && modulus.data[0] == 1;
+    if (exponent.size == 0 || unit) { // x^0 = 1, x mod 1 = 0
+      this.setZero();
+      if (!unit) this.data[this.size ++] = 1;
+      return;
+    }
+    int k = modulus.size;
+    int[] base = Arrays.copyOf(this.data, Math.max(this.size, k));
+    if (compare(this.data, this.size, modulus.data, k) >= 0) {
+      int[] quotient = ScratchArena.borrow(this.size + 1);
+      int[] rest = divide(this.data, this.size, modulus.data, k, quotient);
+      ScratchArena.release(quotient);
+      base = Arrays.copyOf(rest, k);
+    }
+    int baseLen = trimmed(base, base.length);
+    if (baseLen == 0) { // 0^e = 0
+      this.setZero();
+      return;
+    }
+    if ((modulus.data[0] & 1) != 0) {
+      this.data = new ModularExponentiation(modulus.data, k).power(base,
+          exponent.data, exponent.size);
+    } else {
+      this.data = ModularExponentiation.powerByDivision(base, baseLen,
+          exponent.data, exponent.size, modulus.data, k);
+    }
+    this.size = this.data.length;
+    if (this.size == 0) this.data = new int[1];
+    this.normalize();
+  }
+
+  // Integer square root method: this = floor(sqrt(this)), return remainder
+  public BigNum isqrt() {
+    return this.iroot(2);
+  }
+
+  // Integer root method: this = floor(this^(1/k)), return remainder
+  // this - root^k (Newton's iteration with precision doubling)
+  public BigNum iroot(int k) {
+    BigNum remainder = new BigNum(0, this.radix);
+    this.text = null; // value changes
+    // Filter numbers that can not be processed, 0 and infinity remain
+    if (this.data == null || this.size <= 0 || k == 1) {
+      return remainder;
+    }
+    if (k < 1) {
+      // Root of a zero or negative degree -> undefined (null)
+      this.data = null;
+      this.size = 0;
+      return remainder;
+    }
+    int[][] root = Roots.root(Arrays.copyOf(this.data, this.size), k);
+    int[] rest = root[1];
+    this.data = root[0];
+    this.size = root[0].length;
+    if (rest.length > 0) {
+      remainder.data = rest;
+      remainder.size = rest.length;
+    }
+    return remainder;
+  }
+
+  // Shift method: this = this * radix^digits (negative counts shift right),
+  // linear for power of two radices, a product by a cached power otherwise
+  public void shiftLeft(int digits) {
+    this.shiftDigits(digits);
+  }
+
+  // Shift method: this = this / radix^digits (negative counts shift left)
+  public void shiftRight(int digits) {
+    this.shiftDigits(-(long) digits);
+  }
+
+  // Bit shift method: this = this * 2^bits (negative counts shift right)
+  public void shiftLeftBits(int bits) {
+    this.shiftBits(bits);
+  }
+
+  // Bit shift method: this = this / 2^bits (negative counts shift left)
+  public void shiftRightBits(int bits) {
+    this.shiftBits(-(long) bits);
+  }
+
+  // Lower digits: this mod radix^digits as a new number (a negative count
+  // or infinity give null), power of two radices copy the lower limbs once
+  public BigNum lowDigits(int digits) {
+    BigNum result = new BigNum();
+    result.radix = this.radix;
+    if (this.data == null || this.size < 0 || digits < 0) return result;
+    int radixBits = Integer.numberOfTrailingZeros(this.radix);
+    if ((1 << radixBits) == this.radix) {
+      long bits = (long) digits * radixBits;
+      int limbs = (int) Math.min(this.size, (bits + LIMB_BITS - 1) / LIMB_BITS);
+      result.data = Arrays.copyOf(this.data, Math.max(limbs, 1));
+      result.size = limbs;
+      if ((long) limbs * LIMB_BITS > bits) { // mask the top limb
+        result.data[limbs - 1] &= (int) (LIMB_MASK
+            >>> ((long) limbs * LIMB_BITS - bits));
       }
-      divident.data.set(j + n, (byte) Math.abs(carry));
-      // D5
-      quotient.add(0, (byte) testQ);
-    } // D7
-    // D8
-    remainder.data = new ArrayList<Byte>(this.data.subList(0, n));
-    remainder.length = remainder.data.size();
-    remainder.divideByDigit((byte) normalizer);
-    this.data = quotient;
-    this.length = quotient.size();
-    return (remainder);
+      result.normalize();
+      return result;
+    }
+    if (digits >= this.bitLength()) return new BigNum(this); // radix^k > x
+    int[] power = RadixConversion.digitPower(this.radix, digits);
+    return new BigNum(this).divide(new BigNum(power, power.length,
+        this.radix));
+  }
+
+  // Upper digits: this / radix^digits as a new number (a negative count
+  // gives null), power of two radices copy the upper limbs once
+  public BigNum highDigits(int digits) {
+    BigNum result = new BigNum();
+    result.radix = this.radix;
+    if (this.data == null || digits < 0) return result;
+    int radixBits = Integer.numberOfTrailingZeros(this.radix);
+    if ((1 << radixBits) != this.radix || this.size <= 0) {
+      result = new BigNum(this);
+      result.shiftDigits(-(long) digits);
+      return result;
+    }
+    long bits = (long) digits * radixBits;
+    int limbs = (int) Math.min(this.size, bits / LIMB_BITS);
+    result.data = new int[Math.max(this.size - limbs, 1)];
+    result.size = this.size - limbs;
+    shiftRightBits(this.data, limbs, this.size, (int) (bits % LIMB_BITS),
+        result.data, result.size);
+    result.normalize();
+    return result;
+  }
+
+  // Write digits to an appendable chunk by chunk (no string is built)
+  public void writeTo(Appendable appendable) throws IOException {
+    this.writeTo(appendable, null);
+  }
+
+  // Write ASCII digits to a channel chunk by chunk
+  public void writeTo(WritableByteChannel channel) throws IOException {
+    this.writeTo(null, channel);
+  }
+
+  // Size of the binary form in bytes
+  public int binarySize() {
+    return BINARY_HEADER + Integer.BYTES * this.binaryLimbs();
+  }
+
+  // Write the binary form at the buffer position (limbs are copied in bulk,
+  // heap and direct buffers alike), the position moves past the number
+  public void writeTo(ByteBuffer buffer) {
+    int limbs = this.binaryLimbs();
+    if (buffer.remaining() < this.binarySize()) {
+      throw new BufferOverflowException();
+    }
+    ByteBuffer output = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    output.put(BINARY_VERSION).put(this.binaryFlags()).put(this.radix)
+        .putInt(limbs);
+    if (limbs > 0) output.asIntBuffer().put(this.data, 0, limbs);
+    // Buffer methods link on Java 8 too
+    ((Buffer) buffer).position(buffer.position() + this.binarySize());
+  }
+
+  // Read a number in the binary form at the buffer position, the position
+  // moves past the number (unknown versions give null after the header)
+  public static BigNum readFrom(ByteBuffer buffer) {
+    BigNum result = new BigNum();
+    result.readBinary(buffer);
+    return result;
   }
 
   public int length() {
-    // Show the length of this big number
-    return this.length;
+    // Show the length of this big number (in digits of its radix)
+    if (this.data == null && !this.isOffHeap()) return 0;
+    if (this.size <= 0) return 1; // zero and infinity
+    int bits = this.bitLength();
+    int radixBits = Integer.numberOfTrailingZeros(this.radix);
+    if ((1 << radixBits) == this.radix) { // power of two radix
+      return (bits + radixBits - 1) / radixBits;
+    }
+    // Estimate from below and count up: radix^(digits - 1) <= x < radix^digits
+    double digitBits = Math.log(this.radix) / Math.log(2);
+    int digits = Math.max(0, (int) ((bits - 1) / digitBits) - 1);
+    BigNum power = new BigNum(this.radix, this.radix);
+    BigNum bound = new BigNum(1, this.radix);
+    for (int exponent = digits; exponent > 0; exponent >>>= 1) {
+      if ((exponent & 1) != 0) bound.multiply(power);
+      if (exponent > 1) power.multiply(power);
+    }
+    while (this.compare(bound) >= 0) {
+      bound.multiplyAddWord(this.radix, 0);
+      digits ++;
+    }
+    return digits;
   }
 
-  /* Protected methods */
+  // Parse digits of a reader chunk by chunk (no digits at all -> null)
+  public static BigNum parse(Reader reader, byte radix) throws IOException {
+    radix = trimRadix(radix);
+    return parsed(StreamParser.parse(reader, radix), radix);
+  }
 
-  // Comparison method
-  protected int compare(BigNum number) {
-    if (this.length > number.length)
-      return 1; // greater by digit
-    else if (this.length < number.length) {
-      return -1; // lesser by digit
-    } else { // equal by digit
-      byte internal = 0, external = 0;
-      for (int index = this.length - 1; index >= 0; index --) {
-        internal = this.data.get(index);
-        external = number.data.get(index);
-        if (internal > external) return 1; // greater by value
-        else if (internal < external) return -1; // lesser by value
+  // Parse ASCII digits of a stream chunk by chunk
+  public static BigNum parse(InputStream stream, byte radix)
+      throws IOException {
+    radix = trimRadix(radix);
+    return parsed(StreamParser.parse(stream, radix), radix);
+  }
+
+  // Parse ASCII digits of a file from the channel position to the end
+  // through memory mapped regions
+  public static BigNum parse(FileChannel channel, byte radix)
+      throws IOException {
+    radix = trimRadix(radix);
+    return parsed(StreamParser.parse(channel, radix), radix);
+  }
+
+  // Product of numbers by a balanced product tree (special values follow
+  // multiplication from left to right, the result takes the first radix)
+  public static BigNum product(BigNum... numbers) {
+    if (numbers.length == 0) return new BigNum(1);
+    BigNum first = numbers[0];
+    if (first.data == null && !first.isOffHeap()) { // null * x = null
+      return new BigNum(first);
+    }
+    int[][] factors = new int[numbers.length][];
+    int count = 0;
+    boolean infinity = false;
+    for (BigNum number : numbers) {
+      number = number.onHeap();
+      if (number.data == null) continue; // x * null = x
+      if (number.size == 0) return new BigNum(0, first.radix);
+      if (number.size < 0) {
+        infinity = true;
+      } else {
+        factors[count ++] = Arrays.copyOf(number.data, number.size);
       }
-      return 0; // equal by value
+      number.releaseLimbs();
+    }
+    BigNum result = new BigNum(0, first.radix);
+    if (infinity) {
+      result.setInfinity();
+      return result;
     }
+    int[] product = ProductTree.product(factors, 0, count);
+    return new BigNum(product == ProductTree.ONE ? new int[] {1} : product,
+        product.length, first.radix);
   }
 
-  protected void multiplyByDigit(byte multiplier) {
-    int carry = 0;
-    for (int i = 0; i < this.length || carry > 0; i ++) {
-      if (i >= this.length) this.data.add((byte) 0);
-      carry += this.data.get(i) * multiplier;
-      this.data.set(i, (byte) (carry % this.radix));
-      carry /= this.radix;
+  // Factorial by the prime swing algorithm (null for negative numbers)
+  public static BigNum factorial(int number) {
+    if (number < 0) return new BigNum();
+    int[] product = ProductTree.factorial(number);
+    return new BigNum(product, product.length, RADIX_DEFAULT);
+  }
+
+  // Greatest common divisor by Lehmer's algorithm (null and infinity
+  // give null, the result takes the radix of x)
+  public static BigNum gcd(BigNum x, BigNum y) {
+    if (x.isOffHeap() || y.isOffHeap()) { // work on heap copies
+      BigNum xCopy = x.onHeap(), yCopy = y.onHeap();
+      BigNum result = gcd(xCopy, yCopy);
+      xCopy.releaseLimbs();
+      yCopy.releaseLimbs();
+      return result;
     }
-    this.length = this.data.size();
-    while (this.length > 1 && this.data.get(this.length - 1) <= 0) {
-      this.data.remove(-- this.length);
+    BigNum result = new BigNum();
+    result.radix = x.radix;
+    if (x.data == null || y.data == null || x.size < 0 || y.size < 0) {
+      return result;
     }
+    if (x.size == 0 || y.size == 0) { // gcd(x, 0) = x
+      result.data = Arrays.copyOf(x.size == 0 ? y.data : x.data,
+          Math.max(1, Math.max(x.size, y.size)));
+      result.size = Math.max(x.size, y.size);
+      return result;
+    }
+    boolean swap = compare(x.data, x.size, y.data, y.size) < 0;
+    BigNum first = swap ? y : x, second = swap ? x : y;
+    result.data = new GreatestCommonDivisor(first.data, first.size,
+        second.data, second.size, false).compute();
+    result.size = result.data.length;
+    return result;
   }
 
-  protected byte divideByDigit(byte divisor) {
-    int quotient = 0;
-    int remainder = 0;
-    for (int j = this.length - 1; j >= 0; j --) {
-      quotient = this.radix * remainder + this.data.get(j);
-      remainder = quotient % divisor;
-      quotient /= divisor;
-      this.data.set(j, (byte) quotient);
+  // Extended greatest common divisor by Lehmer's algorithm, return
+  // {gcd, s, t}, so that gcd = s * x + t * y (null and infinity give
+  // nulls, results take the radix of x)
+  public static BigSNum[] extendedGcd(BigNum x, BigNum y) {
+    if (x.isOffHeap() || y.isOffHeap()) { // work on heap copies
+      BigNum xCopy = x.onHeap(), yCopy = y.onHeap();
+      BigSNum[] result = extendedGcd(xCopy, yCopy);
+      xCopy.releaseLimbs();
+      yCopy.releaseLimbs();
+      return result;
+    }
+    BigSNum[] result = new BigSNum[3];
+    if (x.data == null || y.data == null || x.size < 0 || y.size < 0) {
+      for (int index = 0; index < result.length; index ++) {
+        result[index] = new BigSNum();
+        result[index].radix = x.radix;
+      }
+      return result;
+    }
+    if (y.size == 0 || x.size == 0) { // gcd(x, 0) = 1 * x + 0 * y
+      result[0] = new BigSNum(y.size == 0 ? x : y);
+      result[1] = new BigSNum(y.size == 0 ? 1 : 0, x.radix);
+      result[2] = new BigSNum(y.size == 0 ? 0 : 1, x.radix);
+      result[0].radix = x.radix;
+      return result;
     }
-    while (this.length > 1 && this.data.get(this.length - 1) == 0) {
-      this.data.remove(-- this.length);
+    boolean swap = compare(x.data, x.size, y.data, y.size) < 0;
+    BigNum first = swap ? y : x, second = swap ? x : y;
+    GreatestCommonDivisor gcd = new GreatestCommonDivisor(first.data,
+        first.size, second.data, second.size, true);
+    int[] divisor = gcd.compute();
+    int[] cofactor = gcd.cofactor();
+    BigNum g = new BigNum(divisor, divisor.length, x.radix);
+    // The other cofactor: t = (gcd - s * first) / second
+    BigNum other = new BigNum(Arrays.copyOf(cofactor,
+        Math.max(1, cofactor.length)), cofactor.length, x.radix);
+    other.multiply(first);
+    boolean positive = gcd.isCofactorNegative() || cofactor.length == 0;
+    if (positive) {
+      other.add(g);
+    } else {
+      other.subtract(g);
     }
-    return ((byte) remainder);
+    other.divide(second);
+    BigSNum s = new BigSNum(new BigNum(Arrays.copyOf(cofactor,
+        Math.max(1, cofactor.length)), cofactor.length, x.radix));
+    BigSNum t = new BigSNum(other);
+    s.negative = gcd.isCofactorNegative();
+    t.negative = !positive && t.size > 0;
+    result[0] = new BigSNum(g);
+    result[1] = swap ? t : s;
+    result[2] = swap ? s : t;
+    return result;
+  }
+
+  /* Protected methods */
+
+  // Comparison method
+  protected int compare(BigNum number) {
+    if (number.isOffHeap()) return -number.compare(this); // on the buffer
+    if (this.size < 0 || number.size < 0) { // infinity is the largest
+      return (this.size < 0 ? 1 : 0) - (number.size < 0 ? 1 : 0);
+    }
+    return compare(this.data, this.size, number.data, number.size);
+  }
+
+  // Multiply in a fork/join pool, operands shorter than cutoff (in limbs)
+  // and special values go to the sequential multiplication
+  protected void multiplyInPool(BigNum number, ForkJoinPool pool,
+      int cutoff) {
+    if (number.isOffHeap()) { // work on a heap copy of parked limbs
+      BigNum copy = number.onHeap();
+      this.multiplyInPool(copy, pool, cutoff);
+      copy.releaseLimbs();
+      return;
+    }
+    cutoff = Math.max(cutoff, KARATSUBA_THRESHOLD);
+    if (this.data == null || number.data == null
+        || Math.min(this.size, number.size) < cutoff) {
+      this.multiply(number);
+      return;
+    }
+    this.text = null; // value changes
+    int[] product = new int[this.size + number.size];
+    pool.invoke(new ParallelMultiplication(this.data, this.size,
+        number.data, number.size, product, cutoff));
+    this.data = product;
+    this.size = product.length;
+    this.normalize();
+  }
+
+  // Multiply by a limb and add a limb (both unsigned)
+  protected void multiplyAddWord(int multiplier, int addend) {
+    this.text = null; // value changes
+    this.ensureCapacity(this.size + 1);
+    int carry = multiplyAddWord(this.data, this.size, multiplier, addend);
+    if (carry != 0) this.data[this.size ++] = carry;
+    this.normalize();
+  }
+
+  // Divide by a limb (unsigned), return the remainder
+  protected int divideWord(int divisor) {
+    this.text = null; // value changes
+    int remainder = divideWord(this.data, this.size, divisor);
+    this.normalize();
+    return remainder;
   }
 
   // Increase this by 1
   protected void increment() {
+    this.text = null; // value changes
+    this.ensureCapacity(this.size + 1);
     int index = 0;
-    int carry = 1; // actually increment
-    do {
-      if (index < this.length) {
-        carry += this.data.get(index);
-        this.data.set(index ++, (byte) (carry % this.radix));
-      } else {
-        this.data.add((byte) 1); // always 1!
-        this.length ++;
+    while (index < this.size && ++ this.data[index] == 0) index ++;
+    if (index == this.size) this.data[this.size ++] = 1; // always 1!
+  }
+
+  // Number with limbs on the heap (this, parked off-heap numbers give a copy
+  // in borrowed limbs), methods taking numbers read operands through it and
+  // give the copy back by releaseLimbs()
+  protected BigNum onHeap() {
+    return this;
+  }
+
+  // Give back borrowed limbs of a copy made by onHeap() (nothing for other
+  // numbers), the copy is not used after
+  protected void releaseLimbs() {
+  }
+
+  // Check whether limbs are parked off heap (data is null then)
+  protected boolean isOffHeap() {
+    return false;
+  }
+
+  // Number of significant bits
+  protected int bitLength() {
+    if (this.size <= 0) return 0;
+    return this.size * LIMB_BITS
+        - Integer.numberOfLeadingZeros(this.data[this.size - 1]);
+  }
+
+  // Write digits to one of the sinks (special values and cached digits are
+  // written as they are)
+  protected void writeTo(Appendable appendable, WritableByteChannel channel)
+      throws IOException {
+    String text = this.data == null ? "null" : this.size < 0 ? "infinity"
+        : this.size == 0 ? "0" : this.textRadix == this.radix ? this.text
+        : null;
+    if (text != null) {
+      StreamFormatter.write(text, appendable, channel);
+    } else if (appendable != null) {
+      StreamFormatter.write(this.data, this.size, this.radix, appendable);
+    } else {
+      StreamFormatter.write(this.data, this.size, this.radix, channel);
+    }
+  }
+
+  // Limbs of the binary form (none for special values)
+  protected int binaryLimbs() {
+    return this.data == null ? 0 : Math.max(this.size, 0);
+  }
+
+  // Flags of the binary form
+  protected byte binaryFlags() {
+    if (this.data == null) return FLAG_NULL;
+    return this.size < 0 ? FLAG_INFINITY : 0;
+  }
+
+  // Take the value from the binary form, return its flags
+  protected byte readBinary(ByteBuffer buffer) {
+    this.text = null; // value changes
+    ByteBuffer input = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    byte version = input.get();
+    byte flags = input.get();
+    byte radix = input.get();
+    int limbs = input.getInt();
+    if (version != BINARY_VERSION || limbs < 0) {
+      ((Buffer) buffer).position(input.position()); // skip the header only
+      this.data = null;
+      this.size = 0;
+      return FLAG_NULL;
+    }
+    if (input.remaining() < (long) Integer.BYTES * limbs) {
+      throw new BufferUnderflowException();
+    }
+    this.radix = trimRadix(radix);
+    if ((flags & FLAG_NULL) != 0) {
+      this.data = null;
+      this.size = 0;
+    } else if ((flags & FLAG_INFINITY) != 0) {
+      this.setInfinity();
+    } else {
+      this.data = new int[Math.max(limbs, 1)];
+      input.asIntBuffer().get(this.data, 0, limbs);
+      this.size = limbs;
+      this.normalize();
+    }
+    ((Buffer) buffer).position(input.position() + Integer.BYTES * limbs);
+    return flags;
+  }
+
+  // Number of parsed limbs (null limbs give null)
+  static BigNum parsed(int[] data, byte radix) {
+    BigNum result = new BigNum();
+    result.radix = radix;
+    if (data != null) {
+      result.data = data.length == 0 ? new int[1] : data;
+      result.size = data.length;
+    }
+    return result;
+  }
+
+  // Make room for the given number of limbs
+  protected void ensureCapacity(int capacity) {
+    if (this.data.length < capacity) {
+      this.data = Arrays.copyOf(this.data,
+          Math.max(capacity, this.data.length + (this.data.length >> 1)));
+    }
+  }
+
+  // this = this * radix^digits, a negative count divides
+  protected void shiftDigits(long digits) {
+    this.text = null; // value changes
+    // Filter numbers that can not be processed, 0 and infinity remain
+    if (this.data == null || this.size <= 0 || digits == 0) {
+      return;
+    }
+    int radixBits = Integer.numberOfTrailingZeros(this.radix);
+    if ((1 << radixBits) == this.radix) {
+      this.shiftBits(digits * radixBits);
+      return;
+    }
+    if (-digits >= this.bitLength()) { // radix^k > this
+      this.setZero();
+      return;
+    }
+    int[] power = RadixConversion.digitPower(this.radix,
+        (int) Math.abs(digits));
+    BigNum number = new BigNum(power, power.length, this.radix);
+    if (digits > 0) {
+      this.multiply(number);
+    } else {
+      this.divide(number);
+    }
+  }
+
+  // this = this * 2^bits, a negative count shifts right in place
+  protected void shiftBits(long bits) {
+    this.text = null; // value changes
+    // Filter numbers that can not be processed, 0 and infinity remain
+    if (this.data == null || this.size <= 0 || bits == 0) {
+      return;
+    }
+    if (bits > 0) {
+      int limbs = Math.toIntExact(bits / LIMB_BITS);
+      int[] shifted = new int[this.size + limbs + 1];
+      shifted[this.size + limbs] = shiftLeftBits(this.data, this.size,
+          (int) (bits % LIMB_BITS), shifted, limbs);
+      this.data = shifted;
+      this.size = shifted.length;
+    } else {
+      long limbs = -bits / LIMB_BITS;
+      if (limbs >= this.size) {
+        this.setZero();
+        return;
+      }
+      shiftRightBits(this.data, (int) limbs, this.size,
+          (int) (-bits % LIMB_BITS), this.data, this.size - (int) limbs);
+      this.size -= (int) limbs;
+    }
+    this.normalize();
+  }
+
+  // Remove leading zero limbs
+  protected void normalize() {
+    while (this.size > 0 && this.data[this.size - 1] == 0) this.size --;
+  }
+
+  protected void setZero() {
+    this.text = null; // value changes
+    if (this.data == null || this.data.length == 0) this.data = new int[1];
+    this.size = 0;
+  }
+
+  protected void setInfinity() {
+    this.setZero();
+    this.size = SIZE_INFINITY;
+  }
+
+  /* Limb kernels */
+
+  // Compare magnitudes of normalized limb arrays
+  static int compare(int[] x, int xLen, int[] y, int yLen) {
+    if (xLen != yLen) return xLen > yLen ? 1 : -1; // differ by limbs
+    return LimbKernels.KERNELS.compare(x, y, xLen); // differ by value
+  }
+
+  // x = x - y in place (x >= y), return borrow
+  static int subtractFrom(int[] x, int xLen, int[] y, int yLen) {
+    long borrow = -LimbKernels.KERNELS.subtract(x, 0, y, 0, yLen, 0);
+    int index = yLen;
+    for (; borrow != 0 && index < xLen; index ++) {
+      borrow += x[index] & LIMB_MASK;
+      x[index] = (int) borrow;
+      borrow >>= LIMB_BITS;
+    }
+    return (int) borrow;
+  }
+
+  // x = x * multiplier + addend in place, return carry out
+  static int multiplyAddWord(int[] x, int xLen, int multiplier, int addend) {
+    return LimbKernels.KERNELS.multiplyAddWord(x, xLen, multiplier, addend);
+  }
+
+  // x = x / divisor in place, return remainder
+  static int divideWord(int[] x, int xLen, int divisor) {
+    long factor = divisor & LIMB_MASK;
+    long remainder = 0;
+    for (int index = xLen - 1; index >= 0; index --) {
+      long total = (remainder << LIMB_BITS) | (x[index] & LIMB_MASK);
+      if (total >= 0) {
+        x[index] = (int) (total / factor);
+        remainder = total % factor;
+      } else { // does not fit signed long
+        x[index] = (int) Long.divideUnsigned(total, factor);
+        remainder = Long.remainderUnsigned(total, factor);
+      }
+    }
+    return (int) remainder;
+  }
+
+  // z = x + y, return new array with room for the carry
+  static int[] add(int[] x, int xLen, int[] y, int yLen) {
+    if (xLen < yLen) return add(y, yLen, x, xLen);
+    int[] z = Arrays.copyOf(x, xLen + 1);
+    addInto(z, 0, y, yLen);
+    return z;
+  }
+
+  // z = x + y, z has room for the carry, return length without leading
+  // zeroes
+  static int add(int[] x, int xLen, int[] y, int yLen, int[] z) {
+    if (xLen < yLen) return add(y, yLen, x, xLen, z);
+    System.arraycopy(x, 0, z, 0, xLen);
+    z[xLen] = 0;
+    addInto(z, 0, y, yLen);
+    return trimmed(z, xLen + 1);
+  }
+
+  // Borrowed copy of limbs [from, to) of x (see ScratchArena)
+  static int[] borrowRange(int[] x, int from, int to) {
+    int[] z = ScratchArena.borrow(to - from);
+    System.arraycopy(x, from, z, 0, to - from);
+    return z;
+  }
+
+  // z = z + (x << offset limbs) in place, z must hold the sum
+  static void addInto(int[] z, int offset, int[] x, int xLen) {
+    long carry = LimbKernels.KERNELS.add(z, offset, x, 0, xLen, 0);
+    for (int index = offset + xLen; carry != 0; index ++) {
+      carry += z[index] & LIMB_MASK;
+      z[index] = (int) carry;
+      carry >>>= LIMB_BITS;
+    }
+  }
+
+  // Length of limb array without leading zeroes
+  static int trimmed(int[] x, int xLen) {
+    while (xLen > 0 && x[xLen - 1] == 0) xLen --;
+    return xLen;
+  }
+
+  // z = x * y, z has xLen + yLen limbs (choose algorithm by size)
+  static void multiply(int[] x, int xLen, int[] y, int yLen, int[] z) {
+    if (x == y && xLen == yLen) { // x * x
+      square(x, xLen, z);
+      return;
+    }
+    if (xLen < yLen) { // keep the longest operand first
+      multiply(y, yLen, x, xLen, z);
+      return;
+    }
+    if (yLen < KARATSUBA_THRESHOLD) {
+      multiplySchoolbook(x, xLen, y, yLen, z);
+    } else if (yLen <= (xLen + 1) / 2) {
+      multiplyUnbalanced(x, xLen, y, yLen, z);
+    } else if (yLen < TOOM_COOK_3_THRESHOLD) {
+      multiplyKaratsuba(x, xLen, y, yLen, z);
+    } else if (yLen < TOOM_COOK_4_THRESHOLD) {
+      ToomCook.multiply(x, xLen, y, yLen, z, 3);
+    } else if (yLen < NTT_THRESHOLD
+        || !NumberTheoreticTransform.fits(xLen + yLen)) {
+      ToomCook.multiply(x, xLen, y, yLen, z, 4);
+    } else {
+      NumberTheoreticTransform.multiply(x, xLen, y, yLen, z);
+    }
+  }
+
+  // z = x * y for xLen much larger than yLen, multiply slices of x by y
+  static void multiplyUnbalanced(int[] x, int xLen, int[] y, int yLen,
+      int[] z) {
+    Arrays.fill(z, 0, xLen + yLen, 0);
+    int[] slice = ScratchArena.borrow(yLen);
+    int[] product = ScratchArena.borrow(2 * yLen);
+    for (int offset = 0; offset < xLen; offset += yLen) {
+      int sliceLen = Math.min(yLen, xLen - offset);
+      System.arraycopy(x, offset, slice, 0, sliceLen);
+      multiply(slice, sliceLen, y, yLen, product);
+      addInto(z, offset, product, trimmed(product, sliceLen + yLen));
+    }
+    ScratchArena.release(slice);
+    ScratchArena.release(product);
+  }
+
+  // z = x * y for similar sizes (Karatsuba algorithm):
+  // x * y = z2 * B^2h + (z1 - z2 - z0) * B^h + z0, where
+  // z2 = x1 * y1, z0 = x0 * y0, z1 = (x1 + x0) * (y1 + y0)
+  static void multiplyKaratsuba(int[] x, int xLen, int[] y, int yLen,
+      int[] z) {
+    int half = (xLen + 1) / 2;
+    // Lower halves are read in place, temporaries are borrowed
+    int x0Len = trimmed(x, half), y0Len = trimmed(y, half);
+    int x1Len = xLen - half, y1Len = yLen - half;
+    int[] x1 = borrowRange(x, half, xLen);
+    int[] y1 = borrowRange(y, half, yLen);
+    // Lower and upper products take their places in z
+    Arrays.fill(z, 0, xLen + yLen, 0);
+    int z0Len = x0Len > 0 && y0Len > 0 ? x0Len + y0Len : 0;
+    int z2Len = x1Len + y1Len;
+    int[] z0 = ScratchArena.borrow(z0Len);
+    int[] z2 = ScratchArena.borrow(z2Len);
+    if (z0Len > 0) {
+      multiply(x, x0Len, y, y0Len, z0);
+      System.arraycopy(z0, 0, z, 0, z0Len);
+    }
+    multiply(x1, x1Len, y1, y1Len, z2);
+    System.arraycopy(z2, 0, z, 2 * half, z2Len);
+    // Middle product from the sums of halves
+    int[] sx = ScratchArena.borrow(Math.max(x0Len, x1Len) + 1);
+    int[] sy = ScratchArena.borrow(Math.max(y0Len, y1Len) + 1);
+    int sxLen = add(x, x0Len, x1, x1Len, sx);
+    int syLen = add(y, y0Len, y1, y1Len, sy);
+    int z1Len = sxLen + syLen;
+    int[] z1 = ScratchArena.borrow(z1Len);
+    multiply(sx, sxLen, sy, syLen, z1);
+    subtractFrom(z1, z1Len, z0, trimmed(z0, z0Len));
+    subtractFrom(z1, z1Len, z2, trimmed(z2, z2Len));
+    addInto(z, half, z1, trimmed(z1, z1Len));
+    for (int[] scratch : new int[][] {x1, y1, z0, z2, sx, sy, z1}) {
+      ScratchArena.release(scratch);
+    }
+  }
+
+  // z = x * y, z has xLen + yLen limbs (log-space algorithm)
+  static void multiplySchoolbook(int[] x, int xLen, int[] y, int yLen,
+      int[] z) {
+    long carry = 0;
+    int iz = 0;
+    for (; iz < xLen + yLen - 1; iz ++) {
+      // Keep column sum in two halves, so it never overflows
+      long lower = carry & LIMB_MASK, upper = carry >>> LIMB_BITS;
+      for (int iy = Math.max(0, iz - (xLen - 1));
+          iy <= Math.min(iz, yLen - 1); iy ++) {
+        long product = (x[iz - iy] & LIMB_MASK) * (y[iy] & LIMB_MASK);
+        lower += product & LIMB_MASK;
+        upper += product >>> LIMB_BITS;
       }
-      carry /= this.radix; // transfer increment
-    } while (carry > 0);
+      z[iz] = (int) lower;
+      carry = upper + (lower >>> LIMB_BITS);
+    }
+    z[iz] = (int) carry;
+  }
+
+  // z = x * x, z has 2 * xLen limbs (choose algorithm by size)
+  static void square(int[] x, int xLen, int[] z) {
+    if (xLen < KARATSUBA_SQUARE_THRESHOLD) {
+      squareSchoolbook(x, xLen, z);
+    } else if (xLen < TOOM_COOK_3_THRESHOLD) {
+      squareKaratsuba(x, xLen, z);
+    } else if (xLen < TOOM_COOK_4_THRESHOLD) {
+      ToomCook.multiply(x, xLen, x, xLen, z, 3);
+    } else if (xLen < NTT_THRESHOLD
+        || !NumberTheoreticTransform.fits(2 * xLen)) {
+      ToomCook.multiply(x, xLen, x, xLen, z, 4);
+    } else {
+      NumberTheoreticTransform.multiply(x, xLen, x, xLen, z);
+    }
+  }
+
+  // z = x * x by Karatsuba's formula with three half sized squares:
+  // z2 = x1 * x1, z0 = x0 * x0, z1 = (x1 + x0) * (x1 + x0)
+  static void squareKaratsuba(int[] x, int xLen, int[] z) {
+    int half = (xLen + 1) / 2;
+    // The lower half is read in place, temporaries are borrowed
+    int[] x1 = borrowRange(x, half, xLen);
+    int x0Len = trimmed(x, half), x1Len = trimmed(x1, xLen - half);
+    Arrays.fill(z, 0, 2 * xLen, 0);
+    int[] z0 = ScratchArena.borrow(2 * x0Len);
+    int[] z2 = ScratchArena.borrow(2 * x1Len);
+    if (x0Len > 0) {
+      square(x, x0Len, z0);
+      System.arraycopy(z0, 0, z, 0, 2 * x0Len);
+    }
+    if (x1Len > 0) {
+      square(x1, x1Len, z2);
+      System.arraycopy(z2, 0, z, 2 * half, 2 * x1Len);
+    }
+    int[] sx = ScratchArena.borrow(Math.max(x0Len, x1Len) + 1);
+    int sxLen = add(x, x0Len, x1, x1Len, sx);
+    int[] z1 = ScratchArena.borrow(2 * sxLen);
+    if (sxLen > 0) square(sx, sxLen, z1);
+    subtractFrom(z1, 2 * sxLen, z0, trimmed(z0, 2 * x0Len));
+    subtractFrom(z1, 2 * sxLen, z2, trimmed(z2, 2 * x1Len));
+    addInto(z, half, z1, trimmed(z1, 2 * sxLen));
+    for (int[] scratch : new int[][] {x1, z0, z2, sx, z1}) {
+      ScratchArena.release(scratch);
+    }
+  }
+
+  // z = x * x, z has 2 * xLen limbs: every cross product x[i] * x[j]
+  // (i < j) is computed once row by row, then the sum is doubled by
+  // a shift and squares of limbs are added on the diagonal
+  static void squareSchoolbook(int[] x, int xLen, int[] z) {
+    Arrays.fill(z, 0, 2 * xLen, 0);
+    for (int i = 0; i < xLen - 1; i ++) {
+      long factor = x[i] & LIMB_MASK;
+      long carry = 0;
+      for (int j = i + 1; j < xLen; j ++) {
+        carry += (z[i + j] & LIMB_MASK) + (x[j] & LIMB_MASK) * factor;
+        z[i + j] = (int) carry;
+        carry >>>= LIMB_BITS;
+      }
+      z[i + xLen] = (int) carry;
+    }
+    long carry = 0;
+    int previous = 0; // upper limb of the previous pair (for the shift)
+    for (int i = 0; i < xLen; i ++) {
+      long product = (x[i] & LIMB_MASK) * (x[i] & LIMB_MASK);
+      int lower = z[2 * i], upper = z[2 * i + 1];
+      carry += (((lower << 1) | (previous >>> 31)) & LIMB_MASK)
+          + (product & LIMB_MASK);
+      z[2 * i] = (int) carry;
+      carry >>>= LIMB_BITS;
+      carry += (((upper << 1) | (lower >>> 31)) & LIMB_MASK)
+          + (product >>> LIMB_BITS);
+      z[2 * i + 1] = (int) carry;
+      carry >>>= LIMB_BITS;
+      previous = upper;
+    }
+  }
+
+  // quotient = x / y, quotient has at least xLen - yLen + 1 limbs,
+  // return remainder without leading zeroes (choose algorithm by size)
+  static int[] divide(int[] x, int xLen, int[] y, int yLen, int[] quotient) {
+    Arrays.fill(quotient, 0);
+    if (compare(x, xLen, y, yLen) < 0) {
+      return Arrays.copyOf(x, xLen);
+    }
+    if (yLen == 1) {
+      System.arraycopy(x, 0, quotient, 0, xLen);
+      int remainder = divideWord(quotient, xLen, y[0]);
+      return remainder == 0 ? new int[0] : new int[] {remainder};
+    }
+    if (yLen < BURNIKEL_ZIEGLER_THRESHOLD
+        || xLen - yLen < BURNIKEL_ZIEGLER_OFFSET) {
+      return divideKnuth(x, xLen, y, yLen, quotient);
+    }
+    return BurnikelZiegler.divide(x, xLen, y, yLen, quotient);
+  }
+
+  // quotient = x / y by Knuth's algorithm D, return remainder (yLen > 1)
+  static int[] divideKnuth(int[] x, int xLen, int[] y, int yLen,
+      int[] quotient) {
+    int n = yLen;
+    int m = xLen - yLen;
+    // D1 (normalize with a shift, so the top limb of divisor gets high bit)
+    int normalizer = Integer.numberOfLeadingZeros(y[n - 1]);
+    int[] divisor = ScratchArena.borrow(n);
+    shiftLeftBits(y, n, normalizer, divisor);
+    int[] divident = ScratchArena.borrow(m + n + 1);
+    divident[m + n] = shiftLeftBits(x, m + n, normalizer, divident);
+    divideNormalized(divident, m, divisor, 0, n, quotient);
+    // D8
+    shiftRightBits(divident, n + 1, normalizer, divident, n);
+    int[] remainder = Arrays.copyOf(divident, trimmed(divident, n));
+    ScratchArena.release(divisor);
+    ScratchArena.release(divident);
+    return remainder;
+  }
+
+  // Knuth's algorithm D2-D7 on normalized buffers without allocation:
+  // u has m + n + 1 limbs and is replaced by the (normalized) remainder,
+  // v (from vOffset, n limbs) has the high bit set, quotient is filled
+  // back to front and may share limbs with the original dividend
+  static void divideNormalized(int[] u, int m, int[] v, int vOffset, int n,
+      int[] quotient) {
+    // D2
+    long subDivisor = v[vOffset + n - 1] & LIMB_MASK;
+    long subSubDivisor = v[vOffset + n - 2] & LIMB_MASK;
+    long subDivident, subSubDivident, testQ, testR;
+    for (int j = m; j >= 0; j --) {
+      // D3
+      subDivident = ((u[j + n] & LIMB_MASK) << LIMB_BITS)
+          | (u[j + n - 1] & LIMB_MASK);
+      subSubDivident = u[j + n - 2] & LIMB_MASK;
+      testQ = Long.divideUnsigned(subDivident, subDivisor);
+      testR = Long.remainderUnsigned(subDivident, subDivisor);
+      if (testQ > LIMB_MASK) { // estimate may exceed a limb
+        testQ = LIMB_MASK;
+        testR = subDivident - testQ * subDivisor;
+      }
+      while (Long.compareUnsigned(testR, LIMB_MASK) <= 0
+          && Long.compareUnsigned(testQ * subSubDivisor,
+            (testR << LIMB_BITS) | subSubDivident) > 0) {
+        testQ --;
+        testR += subDivisor;
+      }
+      // D4 (multiply and subtract in place)
+      long carry = 0, borrow = 0;
+      for (int i = 0; i < n; i ++) {
+        long product = (v[vOffset + i] & LIMB_MASK) * testQ + carry;
+        carry = product >>> LIMB_BITS;
+        borrow += (u[j + i] & LIMB_MASK) - (product & LIMB_MASK);
+        u[j + i] = (int) borrow;
+        borrow >>= LIMB_BITS;
+      }
+      borrow += (u[j + n] & LIMB_MASK) - carry;
+      u[j + n] = (int) borrow;
+      // D5
+      if (borrow < 0) {
+        // D6 (estimate was one too large, add divisor back)
+        testQ --;
+        carry = 0;
+        for (int i = 0; i < n; i ++) {
+          carry += (u[j + i] & LIMB_MASK) + (v[vOffset + i] & LIMB_MASK);
+          u[j + i] = (int) carry;
+          carry >>>= LIMB_BITS;
+        }
+        u[j + n] += (int) carry;
+      }
+      quotient[j] = (int) testQ;
+    } // D7
+  }
+
+  // z = x << bits (bits < 32), z has at least xLen limbs, return carry out
+  static int shiftLeftBits(int[] x, int xLen, int bits, int[] z) {
+    return shiftLeftBits(x, xLen, bits, z, 0);
+  }
+
+  // The same, z is written from zOffset
+  static int shiftLeftBits(int[] x, int xLen, int bits, int[] z,
+      int zOffset) {
+    if (bits == 0) {
+      System.arraycopy(x, 0, z, zOffset, xLen);
+      return 0;
+    }
+    int carry = 0;
+    for (int index = 0; index < xLen; index ++) {
+      int limb = x[index];
+      z[zOffset + index] = (limb << bits) | carry;
+      carry = limb >>> (LIMB_BITS - bits);
+    }
+    return carry;
+  }
+
+  // z = x >> bits (bits < 32), only zLen lower limbs are stored
+  static void shiftRightBits(int[] x, int xLen, int bits, int[] z, int zLen) {
+    shiftRightBits(x, 0, xLen, bits, z, zLen);
+  }
+
+  // The same for limbs of x from xOffset, z can be x (limbs go upwards)
+  static void shiftRightBits(int[] x, int xOffset, int xLen, int bits,
+      int[] z, int zLen) {
+    for (int index = 0; index < zLen; index ++) {
+      int from = xOffset + index;
+      int upper = from + 1 < xLen ? x[from + 1] : 0;
+      z[index] = bits == 0 ? x[from]
+          : (x[from] >>> bits) | (upper << (LIMB_BITS - bits));
+    }
+  }
+
+  // Number of limbs needed to hold a number of digits of a radix
+  static int limbsForDigits(int digits, byte radix) {
+    double bits = digits * (Math.log(radix) / Math.log(2));
+    return (int) (bits / LIMB_BITS) + 2;
+  }
+
+  static byte trimRadix(byte radix) {
+    radix = (radix > RADIX_MAX) ? RADIX_MAX : radix; // trim radix
+    radix = (radix < RADIX_MIN) ? RADIX_MIN : radix; // trim radix
+    return radix;
   }
 
   /* Overrided methods */
@@ -430,20 +1397,20 @@ public class BigNum {
   public String toString() {
     // Override standard toString for string representation
     // of the value of the class
-    if (this.data == null || this.data.size() <= 0) return "null";
-    if (this.data.get(0) < 0) return "infinity";
-    StringBuilder output = new StringBuilder("");
-    byte digit = 0;
-    for (int position = this.length; position > 0; position --) {
-      // Append fron the end of the array list
-      digit = this.data.get(position - 1);
-      if (digit < 0) {
-        output.append('-');
-        digit = (byte) Math.abs(digit);
-      }
-      output.append(this.RADIX_SYMBOL.charAt(digit));
+    return this.toString(this.radix);
+  }
+
+  // String representation in any radix (conversion is cached)
+  public String toString(byte radix) {
+    radix = trimRadix(radix);
+    if (this.data == null) return "null";
+    if (this.size < 0) return "infinity";
+    if (this.size == 0) return "0";
+    if (this.text == null || this.textRadix != radix) {
+      this.text = RadixConversion.format(this.data, this.size, radix);
+      this.textRadix = radix;
     }
-    return output.toString();
+    return this.text;
   }
 
 }
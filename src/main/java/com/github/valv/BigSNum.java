@@ -23,8 +23,9 @@
 
 package com.github.valv;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * BigSNum class provides basics for signed arbitrary precision arithmetic.
@@ -76,16 +77,19 @@ public class BigSNum extends BigNum {
 
   @Override
   public void add(BigNum number) {
-    if (this.radix != number.radix) return; // discard different radixs
+    number = number.onHeap();
     if (this.negative) { // 'this' is negative
       if (this.compare(number) < 0) {
         // 'this' absolute value is less than 'number' so
         // swap the sign, swap values and subtract
         this.negative = !this.negative;
         BigNum swap = new BigNum(number);
-        ArrayList thisData = this.data;
+        int[] thisData = this.data;
+        int thisSize = this.size;
         this.data = swap.data;
+        this.size = swap.size;
         swap.data = thisData;
+        swap.size = thisSize;
         super.subtract(swap);
       } else {
         // 'this' absolute value is more than 'number' so
@@ -95,6 +99,7 @@ public class BigSNum extends BigNum {
     } else { // 'this' and 'number' are positive so do add
       super.add(number);
     }
+    number.releaseLimbs();
   }
 
   public void add(BigSNum number) {
@@ -104,9 +109,12 @@ public class BigSNum extends BigNum {
         // set the sign of 'number', swap values and subtract
         this.negative = number.negative;
         BigNum swap = new BigNum(number); // automatic upcast
-        ArrayList thisData = this.data;
+        int[] thisData = this.data;
+        int thisSize = this.size;
         this.data = swap.data;
+        this.size = swap.size;
         swap.data = thisData;
+        swap.size = thisSize;
         super.subtract(swap);
       } else {
         // 'this' absolute value is more than 'number' so
@@ -142,11 +150,37 @@ public class BigSNum extends BigNum {
   }
 
   @Override
-  public String toString() {
+  public String toString(byte radix) {
     String sign = "";
     if (this.negative && this.data != null)
-      if (!(this.length == 1 && this.data.get(0) == 0)) sign = "-";
-    return sign + super.toString();
+      if (this.size != 0) sign = "-";
+    return sign + super.toString(radix);
+  }
+
+  // Read a signed number in the binary form at the buffer position
+  public static BigSNum readFrom(ByteBuffer buffer) {
+    BigSNum result = new BigSNum();
+    byte flags = result.readBinary(buffer);
+    result.negative = (flags & FLAG_NEGATIVE) != 0;
+    return result;
+  }
+
+  @Override
+  protected byte binaryFlags() {
+    byte flags = super.binaryFlags();
+    if (this.negative && this.data != null && this.size != 0) {
+      flags |= FLAG_NEGATIVE;
+    }
+    return flags;
+  }
+
+  @Override
+  protected void writeTo(Appendable appendable, WritableByteChannel channel)
+      throws IOException {
+    if (this.negative && this.data != null && this.size != 0) {
+      StreamFormatter.write("-", appendable, channel);
+    }
+    super.writeTo(appendable, channel);
   }
 }
 
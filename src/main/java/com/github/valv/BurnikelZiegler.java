@@ -0,0 +1,177 @@
+/*
+ * @(#)BurnikelZiegler.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+package com.github.valv;
+
+import java.util.Arrays;
+
+/**
+ * BurnikelZiegler class implements recursive division of limb arrays
+ * (C. Burnikel, J. Ziegler, "Fast Recursive Division", 1998). Dividend is
+ * cut into blocks of divisor size, every two blocks are divided by the
+ * divisor with two 3n/2n steps, which in turn use one recursive 2n/1n
+ * division and one multiplication. Small blocks fall back to Knuth's
+ * algorithm D, so the whole division costs about two multiplications.
+ * Values are limb arrays without leading zeroes.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+final class BurnikelZiegler {
+  // Constants are never returned to callers, they would mutate them
+  private static final int[] ONE = {1};
+
+  private BurnikelZiegler() {
+  }
+
+  // quotient = x / y (quotient is zeroed), return remainder
+  static int[] divide(int[] x, int xLen, int[] y, int yLen, int[] quotient) {
+    // Block size is j * m limbs, m is a power of two, j is below threshold
+    int m = 1 << (32 - Integer.numberOfLeadingZeros(
+        yLen / BigNum.BURNIKEL_ZIEGLER_THRESHOLD));
+    int n = (yLen + m - 1) / m * m;
+    long blockBits = (long) n * BigNum.LIMB_BITS;
+    // Normalize, so divisor takes exactly n limbs with the high bit set
+    int sigma = (int) (blockBits - bitLength(y, yLen));
+    int[] b = shiftLeft(Arrays.copyOf(y, yLen), sigma);
+    int[] a = shiftLeft(Arrays.copyOf(x, xLen), sigma);
+    int t = Math.max(2, (int) ((bitLength(a, a.length) + blockBits)
+        / blockBits)); // number of blocks, the top one is below divisor
+    int[] z = value(a, (t - 2) * n, t * n);
+    for (int i = t - 2; i >= 0; i --) {
+      int[][] division = divide2n1n(z, b, n);
+      BigNum.addInto(quotient, i * n, division[0], division[0].length);
+      z = i > 0
+          ? combine(division[1], n, value(a, (i - 1) * n, i * n))
+          : division[1];
+    }
+    return shiftRight(z, sigma);
+  }
+
+  // Divide 2n limbs by n limbs (a < b * B^n), return quotient and remainder
+  static int[][] divide2n1n(int[] a, int[] b, int n) {
+    if ((n & 1) != 0 || n < BigNum.BURNIKEL_ZIEGLER_THRESHOLD) {
+      int[] quotient = new int[Math.max(1, a.length - b.length + 1)];
+      int[] remainder = BigNum.divide(a, a.length, b, b.length, quotient);
+      return new int[][] {
+          Arrays.copyOf(quotient, BigNum.trimmed(quotient, quotient.length)),
+          remainder};
+    }
+    int half = n / 2;
+    int[][] upper = divide3n2n(value(a, half, a.length), b, half);
+    int[][] lower = divide3n2n(combine(upper[1], half, value(a, 0, half)),
+        b, half);
+    return new int[][] {combine(upper[0], half, lower[0]), lower[1]};
+  }
+
+  // Divide 3 halves by 2 halves (a < b * B^half), return quotient
+  // and remainder
+  static int[][] divide3n2n(int[] a, int[] b, int half) {
+    int[] a1 = value(a, 2 * half, a.length);
+    int[] a12 = value(a, half, a.length);
+    int[] b1 = value(b, half, b.length);
+    int[] b2 = value(b, 0, half);
+    int[] quotient, remainder;
+    if (BigNum.compare(a1, a1.length, b1, b1.length) < 0) {
+      int[][] division = divide2n1n(a12, b1, half);
+      quotient = division[0];
+      remainder = division[1];
+    } else { // quotient = B^half - 1, remainder = a12 - b1 * B^half + b1
+      quotient = new int[half];
+      Arrays.fill(quotient, -1);
+      remainder = subtract(add(a12, b1), combine(b1, half, new int[0]));
+    }
+    int[] d = multiply(quotient, b2);
+    remainder = combine(remainder, half, value(a, 0, half));
+    while (BigNum.compare(remainder, remainder.length, d, d.length) < 0) {
+      remainder = add(remainder, b); // estimate is too large
+      quotient = subtract(quotient, ONE);
+    }
+    return new int[][] {quotient, subtract(remainder, d)};
+  }
+
+  /* Value helpers */
+
+  // Limbs [from, to) of a value
+  static int[] value(int[] x, int from, int to) {
+    to = Math.min(to, x.length);
+    if (from >= to) return new int[0];
+    int[] z = Arrays.copyOfRange(x, from, to);
+    return Arrays.copyOf(z, BigNum.trimmed(z, z.length));
+  }
+
+  // high * B^shift + low, low has at most shift limbs
+  static int[] combine(int[] high, int shift, int[] low) {
+    if (high.length == 0) return low;
+    int[] z = new int[high.length + shift];
+    System.arraycopy(low, 0, z, 0, low.length);
+    System.arraycopy(high, 0, z, shift, high.length);
+    return z;
+  }
+
+  static int[] add(int[] x, int[] y) {
+    int[] z = BigNum.add(x, x.length, y, y.length);
+    return Arrays.copyOf(z, BigNum.trimmed(z, z.length));
+  }
+
+  // x - y for x >= y
+  static int[] subtract(int[] x, int[] y) {
+    int[] z = x.clone();
+    BigNum.subtractFrom(z, z.length, y, y.length);
+    return Arrays.copyOf(z, BigNum.trimmed(z, z.length));
+  }
+
+  static int[] multiply(int[] x, int[] y) {
+    if (x.length == 0 || y.length == 0) return new int[0];
+    int[] z = new int[x.length + y.length];
+    BigNum.multiply(x, x.length, y, y.length, z);
+    return Arrays.copyOf(z, BigNum.trimmed(z, z.length));
+  }
+
+  static int bitLength(int[] x, int xLen) {
+    if (xLen == 0) return 0;
+    return xLen * BigNum.LIMB_BITS - Integer.numberOfLeadingZeros(x[xLen - 1]);
+  }
+
+  static int[] shiftLeft(int[] x, int bits) {
+    int limbs = bits / BigNum.LIMB_BITS;
+    int[] z = new int[x.length + limbs + 1];
+    int[] shifted = new int[x.length];
+    z[x.length + limbs] = BigNum.shiftLeftBits(x, x.length,
+        bits % BigNum.LIMB_BITS, shifted);
+    System.arraycopy(shifted, 0, z, limbs, x.length);
+    return Arrays.copyOf(z, BigNum.trimmed(z, z.length));
+  }
+
+  static int[] shiftRight(int[] x, int bits) {
+    int limbs = bits / BigNum.LIMB_BITS;
+    if (limbs >= x.length) return new int[0];
+    int[] upper = Arrays.copyOfRange(x, limbs, x.length);
+    int[] z = new int[upper.length];
+    BigNum.shiftRightBits(upper, upper.length, bits % BigNum.LIMB_BITS,
+        z, z.length);
+    return Arrays.copyOf(z, BigNum.trimmed(z, z.length));
+  }
+}
+
+/* vim: set si et ts=2 sw=2: */
@@ -0,0 +1,234 @@
+/*
+ * @(#)GreatestCommonDivisor.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+package com.github.valv;
+
+import java.util.Arrays;
+
+/**
+ * GreatestCommonDivisor class implements Lehmer's algorithm (D. Knuth,
+ * TAOCP vol. 2, 4.5.2, algorithm L). Euclid's steps are simulated on
+ * the leading 31 bits of both remainders as long as quotients of the
+ * approximations are exact, then the collected 2x2 matrix of single word
+ * cofactors is applied to the whole numbers in one linear pass. Only
+ * when no step can be simulated a full division is done. For the extended
+ * algorithm the cofactor of the first operand is tracked as well: signs
+ * of Euclid's cofactors alternate, so their magnitudes only add up.
+ * Values are limb arrays, buffers are allocated once per computation.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+final class GreatestCommonDivisor {
+  private static final int APPROXIMATION_BITS = 31;
+
+  private int[] a, b, spareA, spareB; // remainders (a >= b) and buffers
+  private int aLen, bLen;
+  private final boolean extended;
+  private int[] s0, s1, spare0, spare1; // cofactor magnitudes of a and b
+  private int s0Len, s1Len;
+  private boolean negative0, negative1; // signs of cofactors
+
+  // Remainders start with x >= y > 0
+  GreatestCommonDivisor(int[] x, int xLen, int[] y, int yLen,
+      boolean extended) {
+    this.a = Arrays.copyOf(x, xLen);
+    this.b = Arrays.copyOf(y, xLen);
+    this.spareA = new int[xLen];
+    this.spareB = new int[xLen];
+    this.aLen = xLen;
+    this.bLen = yLen;
+    this.extended = extended;
+    if (extended) { // x = 1 * x + 0 * y, y = 0 * x + 1 * y
+      this.s0 = new int[xLen + 2];
+      this.s1 = new int[xLen + 2];
+      this.spare0 = new int[xLen + 2];
+      this.spare1 = new int[xLen + 2];
+      this.s0[0] = 1;
+      this.s0Len = 1;
+      this.negative1 = true; // signs alternate, even for zero
+    }
+  }
+
+  // Run the algorithm, return gcd without leading zeroes
+  int[] compute() {
+    while (this.bLen > 0) {
+      if (!this.lehmerStep()) this.divisionStep();
+    }
+    return Arrays.copyOf(this.a, this.aLen);
+  }
+
+  // Magnitude of the cofactor of x (gcd = s * x + t * y)
+  int[] cofactor() {
+    return Arrays.copyOf(this.s0, this.s0Len);
+  }
+
+  boolean isCofactorNegative() {
+    return this.negative0 && this.s0Len > 0;
+  }
+
+  // Simulate Euclid's steps on leading bits and apply them to the whole
+  // remainders, return false if not a single step could be simulated
+  private boolean lehmerStep() {
+    int shift = Math.max(0,
+        bitLength(this.a, this.aLen) - APPROXIMATION_BITS);
+    long x = leadingBits(this.a, this.aLen, shift);
+    long y = leadingBits(this.b, this.bLen, shift);
+    // (a, b) -> (p * a + q * b, r * a + s * b)
+    long p = 1, q = 0, r = 0, s = 1;
+    while (y + r != 0 && y + s != 0) {
+      long quotient = (x + p) / (y + r);
+      if (quotient != (x + q) / (y + s)) break;
+      long t = p - quotient * r;
+      p = r;
+      r = t;
+      t = q - quotient * s;
+      q = s;
+      s = t;
+      t = x - quotient * y;
+      x = y;
+      y = t;
+    }
+    if (q == 0) return false;
+    int newALen = combine(p, this.a, this.aLen, q, this.b, this.bLen,
+        this.spareA);
+    int newBLen = combine(r, this.a, this.aLen, s, this.b, this.bLen,
+        this.spareB);
+    int[] swap = this.a;
+    this.a = this.spareA;
+    this.spareA = swap;
+    swap = this.b;
+    this.b = this.spareB;
+    this.spareB = swap;
+    this.aLen = newALen;
+    this.bLen = newBLen;
+    if (this.extended) {
+      boolean negative0 = p != 0 ? (p < 0) ^ this.negative0
+          : (q < 0) ^ this.negative1;
+      boolean negative1 = r != 0 ? (r < 0) ^ this.negative0
+          : (s < 0) ^ this.negative1;
+      int newS0Len = combineMagnitudes(p, this.s0, this.s0Len, q, this.s1,
+          this.s1Len, this.spare0);
+      int newS1Len = combineMagnitudes(r, this.s0, this.s0Len, s, this.s1,
+          this.s1Len, this.spare1);
+      swap = this.s0;
+      this.s0 = this.spare0;
+      this.spare0 = swap;
+      swap = this.s1;
+      this.s1 = this.spare1;
+      this.spare1 = swap;
+      this.s0Len = newS0Len;
+      this.s1Len = newS1Len;
+      this.negative0 = negative0;
+      this.negative1 = negative1;
+    }
+    return true;
+  }
+
+  // One Euclid's step with a full division: (a, b) -> (b, a mod b)
+  private void divisionStep() {
+    int[] quotient = new int[this.aLen - this.bLen + 1];
+    int[] remainder = BigNum.divide(this.a, this.aLen, this.b, this.bLen,
+        quotient);
+    int[] swap = this.a;
+    this.a = this.b;
+    this.aLen = this.bLen;
+    this.b = swap;
+    System.arraycopy(remainder, 0, this.b, 0, remainder.length);
+    this.bLen = remainder.length;
+    if (this.extended) { // (s0, s1) -> (s1, s0 - quotient * s1)
+      int quotientLen = BigNum.trimmed(quotient, quotient.length);
+      int[] next = this.spare0;
+      Arrays.fill(next, 0);
+      if (this.s1Len > 0) {
+        int[] product = new int[quotientLen + this.s1Len];
+        BigNum.multiply(quotient, quotientLen, this.s1, this.s1Len,
+            product);
+        System.arraycopy(product, 0, next, 0,
+            BigNum.trimmed(product, product.length));
+      }
+      BigNum.addInto(next, 0, this.s0, this.s0Len);
+      this.spare0 = this.s0;
+      this.s0 = this.s1;
+      this.s0Len = this.s1Len;
+      this.s1 = next;
+      this.s1Len = BigNum.trimmed(next, next.length);
+      boolean negative = this.negative0;
+      this.negative0 = this.negative1;
+      this.negative1 = negative;
+    }
+  }
+
+  // z = p * x + q * y for opposite signs of p and q (|p|, |q| < 2^31),
+  // the result is not negative and not longer than x, return its length
+  static int combine(long p, int[] x, int xLen, long q, int[] y, int yLen,
+      int[] z) {
+    long carry = 0;
+    for (int index = 0; index < xLen; index ++) {
+      long limb = index < yLen ? y[index] & BigNum.LIMB_MASK : 0;
+      carry += p * (x[index] & BigNum.LIMB_MASK) + q * limb;
+      z[index] = (int) carry;
+      carry >>= BigNum.LIMB_BITS; // arithmetic shift keeps the sign
+    }
+    return BigNum.trimmed(z, xLen);
+  }
+
+  // z = |p| * x + |q| * y, return its length
+  static int combineMagnitudes(long p, int[] x, int xLen, long q, int[] y,
+      int yLen, int[] z) {
+    long pAbs = Math.abs(p), qAbs = Math.abs(q);
+    int zLen = Math.max(xLen, yLen);
+    long carry = 0;
+    for (int index = 0; index < zLen; index ++) {
+      long px = index < xLen ? pAbs * (x[index] & BigNum.LIMB_MASK) : 0;
+      long qy = index < yLen ? qAbs * (y[index] & BigNum.LIMB_MASK) : 0;
+      // Keep the sum in two halves, so it never overflows
+      long lower = (px & BigNum.LIMB_MASK) + (qy & BigNum.LIMB_MASK)
+          + (carry & BigNum.LIMB_MASK);
+      carry = (px >>> BigNum.LIMB_BITS) + (qy >>> BigNum.LIMB_BITS)
+          + (carry >>> BigNum.LIMB_BITS) + (lower >>> BigNum.LIMB_BITS);
+      z[index] = (int) lower;
+    }
+    z[zLen] = (int) carry;
+    z[zLen + 1] = (int) (carry >>> BigNum.LIMB_BITS);
+    return BigNum.trimmed(z, zLen + 2);
+  }
+
+  // x >> shift for x < 2^(shift + 31)
+  static long leadingBits(int[] x, int xLen, int shift) {
+    int index = shift / BigNum.LIMB_BITS, offset = shift % BigNum.LIMB_BITS;
+    if (index >= xLen) return 0;
+    long bits = (x[index] & BigNum.LIMB_MASK) >>> offset;
+    if (index + 1 < xLen) {
+      bits |= (x[index + 1] & BigNum.LIMB_MASK) << (BigNum.LIMB_BITS - offset);
+    }
+    return bits & ((1L << APPROXIMATION_BITS) - 1);
+  }
+
+  static int bitLength(int[] x, int xLen) {
+    if (xLen == 0) return 0;
+    return xLen * BigNum.LIMB_BITS - Integer.numberOfLeadingZeros(x[xLen - 1]);
+  }
+}
+
+/* vim: set si et ts=2 sw=2: */
@@ -0,0 +1,272 @@
+/*
+ * @(#)ImmutableBigNum.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+package com.github.valv;
+
+import java.util.Arrays;
+
+/**
+ * ImmutableBigNum class is an unsigned value type of BigNum. Arithmetic
+ * returns new objects and never changes operands, so limb arrays are
+ * shared between objects wherever a result equals an operand (x + 0,
+ * x * 1, a change of radix, etc.). Equal values are equal objects in any
+ * radix, the hash code and the string are computed once and cached,
+ * which makes objects fit for keys of hash maps. Special values (null and
+ * infinity) follow the rules of BigNum.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+public final class ImmutableBigNum {
+  private static final int[] NONE = {}; // limbs of zero and infinity
+
+  private final byte radix;
+  private final int size; // limbs in use (zero has none), -1 for infinity
+  private final int[] data; // limbs, never changed (null for null)
+  private int hash; // cached hash code (0 when not computed yet)
+  private String text; // cached digits in the radix
+
+  /* Constructors */
+
+  // Integer constructor
+  public ImmutableBigNum(int number) {
+    this(number, BigNum.RADIX_DEFAULT); // default radix is 10
+  }
+
+  // Integer/radix constructor
+  public ImmutableBigNum(int number, byte radix) {
+    this(new BigNum(number, radix));
+  }
+
+  // String constructor
+  public ImmutableBigNum(String number) {
+    this(number, BigNum.RADIX_DEFAULT); // default radix is 10
+  }
+
+  // String/radix constructor
+  public ImmutableBigNum(String number, byte radix) {
+    this(new BigNum(number, radix));
+  }
+
+  // Object (BigNum) constructor, the only place where limbs are copied
+  public ImmutableBigNum(BigNum number) {
+    number = number.onHeap();
+    this.radix = number.radix;
+    this.size = number.size;
+    this.data = number.data == null ? null
+        : number.size > 0 ? Arrays.copyOf(number.data, number.size) : NONE;
+    number.releaseLimbs();
+  }
+
+  // Limbs constructor (takes ownership of the array, size is trimmed)
+  ImmutableBigNum(int[] data, int size, byte radix) {
+    this.radix = radix;
+    this.data = data;
+    this.size = size;
+  }
+
+  /* Public methods */
+
+  // Addition method
+  public ImmutableBigNum add(ImmutableBigNum number) {
+    if (this.data == null || number.data == null) return this;
+    if (number.size == 0) return this; // x + 0 = x
+    if (this.size < 0 || number.size < 0) return this.infinity();
+    if (this.size == 0) return number.withRadix(this.radix); // 0 + x = x
+    int[] sum = BigNum.add(this.data, this.size, number.data, number.size);
+    return new ImmutableBigNum(sum, BigNum.trimmed(sum, sum.length),
+        this.radix);
+  }
+
+  // Subtraction method (subtrahend larger than minuend gives zero)
+  public ImmutableBigNum subtract(ImmutableBigNum number) {
+    if (this.data == null || number.data == null) return this;
+    if (number.size == 0) return this; // x - 0 = x
+    if (this.compare(number) <= 0) return this.zero();
+    if (this.size < 0) return this; // infinity - x = infinity
+    int[] difference = Arrays.copyOf(this.data, this.size);
+    BigNum.subtractFrom(difference, this.size, number.data, number.size);
+    return new ImmutableBigNum(difference,
+        BigNum.trimmed(difference, this.size), this.radix);
+  }
+
+  // Multiplication method
+  public ImmutableBigNum multiply(ImmutableBigNum number) {
+    if (this.data == null || number.data == null) return this;
+    if (this.size == 0 || number.size == 0) return this.zero();
+    if (this.size < 0 || number.size < 0) return this.infinity();
+    if (number.isOne()) return this; // x * 1 = x
+    if (this.isOne()) return number.withRadix(this.radix); // 1 * x = x
+    int[] product = new int[this.size + number.size];
+    BigNum.multiply(this.data, this.size, number.data, number.size,
+        product);
+    return new ImmutableBigNum(product,
+        BigNum.trimmed(product, product.length), this.radix);
+  }
+
+  // Division method (quotient)
+  public ImmutableBigNum divide(ImmutableBigNum number) {
+    return this.divideAndRemainder(number)[0];
+  }
+
+  // Division method (remainder)
+  public ImmutableBigNum remainder(ImmutableBigNum number) {
+    return this.divideAndRemainder(number)[1];
+  }
+
+  // Division method, return quotient and remainder
+  public ImmutableBigNum[] divideAndRemainder(ImmutableBigNum number) {
+    if (this.data == null || number.data == null) {
+      // Null operands leave the dividend, the remainder is zero
+      return new ImmutableBigNum[] {this, this.zero()};
+    }
+    if (number.size == 0 || (this.size < 0 && number.size < 0)) {
+      // Divide by zero or infinity by infinity -> undefined (null), the
+      // remainder is zero
+      return new ImmutableBigNum[] {
+          new ImmutableBigNum(null, 0, this.radix), this.zero()};
+    }
+    if (this.size <= 0 || number.isOne()) {
+      // Divide infinity or zero by a finite non-zero, or anything by one
+      return new ImmutableBigNum[] {this, this.zero()};
+    }
+    if (number.size < 0) {
+      // Divide anything except infinity by infinity -> zero
+      return new ImmutableBigNum[] {this.zero(), this.zero()};
+    }
+    if (this.compare(number) < 0) {
+      // Divisor > dividend -> quotient = 0, remainder = dividend
+      return new ImmutableBigNum[] {this.zero(), this};
+    }
+    int[] quotient = new int[this.size - number.size + 1];
+    int[] rest = BigNum.divide(this.data, this.size, number.data,
+        number.size, quotient);
+    return new ImmutableBigNum[] {
+        new ImmutableBigNum(quotient,
+            BigNum.trimmed(quotient, quotient.length), this.radix),
+        new ImmutableBigNum(rest, rest.length, this.radix)};
+  }
+
+  // The same value in another radix (limbs are shared)
+  public ImmutableBigNum withRadix(byte radix) {
+    radix = BigNum.trimRadix(radix);
+    if (radix == this.radix) return this;
+    return new ImmutableBigNum(this.data, this.size, radix);
+  }
+
+  // Copy into a new (mutable) BigNum
+  public BigNum toBigNum() {
+    if (this.data == null) {
+      BigNum number = new BigNum();
+      number.radix = this.radix;
+      return number;
+    }
+    return new BigNum(Arrays.copyOf(this.data, Math.max(this.size, 1)),
+        this.size, this.radix);
+  }
+
+  public int length() {
+    // Show the length of this number (in digits of its radix)
+    if (this.data == null) return 0;
+    if (this.size <= 0) return 1; // zero and infinity
+    return new BigNum(this.data, this.size, this.radix).length();
+  }
+
+  public byte radix() {
+    return this.radix;
+  }
+
+  /* Private methods */
+
+  private int compare(ImmutableBigNum number) {
+    if (this.size < 0 || number.size < 0) { // infinity is the largest
+      return (this.size < 0 ? 1 : 0) - (number.size < 0 ? 1 : 0);
+    }
+    return BigNum.compare(this.data, this.size, number.data, number.size);
+  }
+
+  private boolean isOne() {
+    return this.size == 1 && this.data[0] == 1;
+  }
+
+  // A real zero in the radix of this (never the undefined value)
+  private ImmutableBigNum zero() {
+    return this.size == 0 && this.data != null ? this
+        : new ImmutableBigNum(NONE, 0, this.radix);
+  }
+
+  private ImmutableBigNum infinity() {
+    return this.size < 0 ? this
+        : new ImmutableBigNum(NONE, BigNum.SIZE_INFINITY, this.radix);
+  }
+
+  /* Overrided methods */
+
+  @Override
+  public boolean equals(Object object) {
+    if (object == this) return true;
+    if (!(object instanceof ImmutableBigNum)) return false;
+    ImmutableBigNum number = (ImmutableBigNum) object;
+    if (this.data == null || number.data == null) {
+      return this.data == number.data; // null equals only null
+    }
+    if (this.size != number.size) return false;
+    if (this.hash != 0 && number.hash != 0 && this.hash != number.hash) {
+      return false; // both hashes are known and differ
+    }
+    for (int index = 0; index < this.size; index ++) {
+      if (this.data[index] != number.data[index]) return false;
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    // Hash of the value (not of the radix), computed once: racing threads
+    // compute the same number, so no synchronization is needed
+    int hash = this.hash;
+    if (hash == 0 && this.data != null) {
+      hash = this.size;
+      for (int index = 0; index < this.size; index ++) {
+        hash = 31 * hash + this.data[index];
+      }
+      this.hash = hash;
+    }
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    if (this.data == null) return "null";
+    if (this.size < 0) return "infinity";
+    if (this.size == 0) return "0";
+    String text = this.text;
+    if (text == null) {
+      text = RadixConversion.format(this.data, this.size, this.radix);
+      this.text = text;
+    }
+    return text;
+  }
+}
+
+/* vim: set si et ts=2 sw=2: */
@@ -0,0 +1,121 @@
+/*
+ * @(#)LimbKernels.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+package com.github.valv;
+
+/**
+ * LimbKernels class holds the carry loops of addition, subtraction,
+ * comparison and multiplication by a word, which dominate long sums.
+ * This class is the scalar implementation. When the library is built with
+ * the vector profile on JDK 17 and higher and the jdk.incubator.vector
+ * module is present at run time, the SIMD implementation is loaded by name
+ * instead, otherwise (or with -Dcom.github.valv.vector=false) the scalar
+ * loops are used. The property value force takes the SIMD kernels on
+ * vectors of any length, and a vector size in bits (128, 256 or 512) takes
+ * them on that size, so every shape can be tested on one machine.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+class LimbKernels {
+  static final String VECTOR_KERNELS = "com.github.valv.VectorLimbKernels";
+  static final String VECTOR_PROPERTY = "com.github.valv.vector";
+  static final String VECTOR_MODE = System.getProperty(VECTOR_PROPERTY,
+      "true");
+
+  static final LimbKernels KERNELS = load();
+
+  // Vector kernels when they can be linked, scalar ones otherwise
+  static LimbKernels load() {
+    if (!Boolean.parseBoolean(VECTOR_MODE) && !forced()) {
+      return new LimbKernels();
+    }
+    try {
+      return (LimbKernels) Class.forName(VECTOR_KERNELS)
+          .getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      return new LimbKernels(); // not built or no module
+    }
+  }
+
+  // Whether vector kernels are requested on vectors of any length
+  static boolean forced() {
+    return VECTOR_MODE.equals("force") || VECTOR_MODE.matches("[0-9]+");
+  }
+
+  // Name of the implementation
+  String name() {
+    return "scalar";
+  }
+
+  // z[zOffset + i] += x[xOffset + i] + carry for i < length, return carry
+  int add(int[] z, int zOffset, int[] x, int xOffset, int length,
+      int carry) {
+    long sum = carry;
+    for (int index = 0; index < length; index ++) {
+      sum += (z[zOffset + index] & BigNum.LIMB_MASK)
+          + (x[xOffset + index] & BigNum.LIMB_MASK);
+      z[zOffset + index] = (int) sum;
+      sum >>>= BigNum.LIMB_BITS;
+    }
+    return (int) sum;
+  }
+
+  // z[zOffset + i] -= x[xOffset + i] + borrow for i < length, return borrow
+  int subtract(int[] z, int zOffset, int[] x, int xOffset, int length,
+      int borrow) {
+    long difference = -borrow;
+    for (int index = 0; index < length; index ++) {
+      difference += (z[zOffset + index] & BigNum.LIMB_MASK)
+          - (x[xOffset + index] & BigNum.LIMB_MASK);
+      z[zOffset + index] = (int) difference;
+      difference >>= BigNum.LIMB_BITS; // arithmetic shift keeps -1
+    }
+    return (int) -difference;
+  }
+
+  // Compare the lower length limbs of x and y as unsigned numbers
+  int compare(int[] x, int[] y, int length) {
+    for (int index = length - 1; index >= 0; index --) {
+      if (x[index] != y[index]) { // differ by value
+        return (x[index] & BigNum.LIMB_MASK) > (y[index] & BigNum.LIMB_MASK)
+            ? 1 : -1;
+      }
+    }
+    return 0;
+  }
+
+  // x = x * multiplier + addend in place, return carry out
+  int multiplyAddWord(int[] x, int length, int multiplier, int addend) {
+    long factor = multiplier & BigNum.LIMB_MASK;
+    long carry = addend & BigNum.LIMB_MASK;
+    for (int index = 0; index < length; index ++) {
+      carry += (x[index] & BigNum.LIMB_MASK) * factor;
+      x[index] = (int) carry;
+      carry >>>= BigNum.LIMB_BITS;
+    }
+    return (int) carry;
+  }
+}
+
+/* vim: set si et ts=2 sw=2: */
@@ -0,0 +1,537 @@
+/*
+ * @(#)MappedBigNum.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+
+package com.github.valv;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * MappedBigNum class keeps limbs of a number in a file, so numbers may be
+ * larger than the heap. The file holds little endian limbs (its length is
+ * four bytes per limb) and is read and written through a few cached memory
+ * mapped windows (a window spans a region, the file grows by whole windows
+ * while it is open and is cut to the value when it is closed), only a few
+ * regions are on the heap at a time. Sums, differences and products by a
+ * word stream through the operands region by region with a carry. Products
+ * of two numbers are built in blocks: products of block pairs i, j with
+ * i + j = k are summed and the lower limbs of block k are final, so the
+ * product file is written in order while operands are paged in. Long
+ * operands (two blocks and more, a block is the largest power of two in a
+ * region up to 2^24 limbs, from 8192 limbs on) have every block transformed
+ * once modulo three primes into temporary files (six times the operand size
+ * on disk), so a block pair costs a pointwise product instead of three
+ * transforms, and each output block takes one inverse transform per group
+ * of pairs. The number of pairs is still quadratic in the number of blocks
+ * (a transform may not exceed 2^25 elements for the primes), transforms
+ * take about fourteen blocks of heap. Shorter operands multiply region
+ * pairs in memory. Mapped numbers are finite: null and infinity operands
+ * are ignored.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+public class MappedBigNum implements AutoCloseable {
+  // Limbs of a region by default and at most (a region is mapped at once)
+  static final int REGION = 1 << 20;
+  static final int REGION_MAX = 1 << 28;
+
+  // Mapped windows kept at a time and the least limbs of a window
+  static final int WINDOWS = 16;
+  static final int WINDOW_MIN = 1 << 12;
+
+  // Limbs of a block of products by transforms at most (two blocks take a
+  // transform) and the primes of transforms
+  static final int BLOCK_MAX = NumberTheoreticTransform.MAX_LENGTH >> 1;
+  private static final int[] PRIMES = NumberTheoreticTransform.PRIMES;
+  private static final int[] ROOTS = NumberTheoreticTransform.ROOTS;
+
+  protected byte radix = BigNum.RADIX_DEFAULT;
+  protected long size = 0; // limbs in use
+  protected final Path path;
+  protected final FileChannel channel;
+  protected final int region; // limbs of a region
+  protected final int window; // limbs of a mapped window
+  protected final Map<Long, MappedByteBuffer> windows; // least recent first
+
+  /* Constructors */
+
+  // Path constructor (the file is created when it does not exist)
+  public MappedBigNum(Path path) throws IOException {
+    this(path, BigNum.RADIX_DEFAULT);
+  }
+
+  // Path/radix constructor
+  public MappedBigNum(Path path, byte radix) throws IOException {
+    this(BigNum.trimRadix(radix), path, REGION); // REGION is in limbs
+  }
+
+  // Path/radix/region constructor, regions take the given number of digits
+  public MappedBigNum(Path path, byte radix, int region) throws IOException {
+    this(BigNum.trimRadix(radix), path, Math.min(REGION_MAX,
+        BigNum.limbsForDigits(Math.max(region, 1), BigNum.trimRadix(radix))));
+  }
+
+  // Radix/path/limbs constructor
+  MappedBigNum(byte radix, Path path, int region) throws IOException {
+    this.radix = radix;
+    this.path = path;
+    this.region = region;
+    this.window = Math.max(region, WINDOW_MIN);
+    this.windows = new LinkedHashMap<Long, MappedByteBuffer>(WINDOWS, 0.75f,
+        true) {
+      @Override
+      protected boolean removeEldestEntry(
+          Map.Entry<Long, MappedByteBuffer> eldest) {
+        if (this.size() <= WINDOWS) return false;
+        OffHeapBigNum.free(eldest.getValue()); // no views of it are kept
+        return true;
+      }
+    };
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    this.size = this.channel.size() / Integer.BYTES;
+    this.size = this.trimmed(this.size);
+  }
+
+  /* Public methods */
+
+  // Copy value of a number into the file
+  public void set(BigNum number) throws IOException {
+    number = number.onHeap();
+    if (number.data == null || number.size < 0) return;
+    for (int from = 0; from < number.size; from += this.region) {
+      this.write(from, Math.min(this.region, number.size - from),
+          number.data, from);
+    }
+    this.resize(number.size);
+    number.releaseLimbs();
+  }
+
+  // Read the value into a new BigNum (it must fit the heap)
+  public BigNum toBigNum() throws IOException {
+    int limbs = Math.toIntExact(this.size);
+    int[] data = new int[Math.max(limbs, 1)];
+    for (int from = 0; from < limbs; from += this.region) {
+      this.read(from, Math.min(this.region, limbs - from), data, from);
+    }
+    return new BigNum(data, limbs, this.radix);
+  }
+
+  // this = this + number
+  public void add(MappedBigNum number) throws IOException {
+    long length = Math.max(this.size, number.size);
+    int[] x = new int[this.region];
+    int[] y = new int[this.region];
+    int carry = 0;
+    for (long from = 0; from < length; from += this.region) {
+      if (from >= number.size && carry == 0) break; // the rest remains
+      int count = (int) Math.min(this.region, length - from);
+      this.read(from, count, x, 0);
+      number.read(from, count, y, 0);
+      carry = LimbKernels.KERNELS.add(x, 0, y, 0, count, carry);
+      this.write(from, count, x, 0);
+    }
+    if (carry != 0) {
+      x[0] = carry;
+      this.write(length ++, 1, x, 0);
+    }
+    this.size = length;
+  }
+
+  // this = this - number (subtrahend larger than minuend gives zero)
+  public void subtract(MappedBigNum number) throws IOException {
+    if (number.size == 0) return; // x - 0 = x
+    if (this.compare(number) <= 0) {
+      this.resize(0);
+      return;
+    }
+    int[] x = new int[this.region];
+    int[] y = new int[this.region];
+    int borrow = 0;
+    for (long from = 0; from < this.size; from += this.region) {
+      if (from >= number.size && borrow == 0) break; // the rest remains
+      int count = (int) Math.min(this.region, this.size - from);
+      this.read(from, count, x, 0);
+      number.read(from, count, y, 0);
+      borrow = LimbKernels.KERNELS.subtract(x, 0, y, 0, count, borrow);
+      this.write(from, count, x, 0);
+    }
+    this.resize(this.trimmed(this.size));
+  }
+
+  // this = this * word (unsigned)
+  public void multiply(int word) throws IOException {
+    if (word == 0) {
+      this.resize(0);
+      return;
+    }
+    int[] x = new int[this.region];
+    int carry = 0;
+    for (long from = 0; from < this.size; from += this.region) {
+      int count = (int) Math.min(this.region, this.size - from);
+      this.read(from, count, x, 0);
+      carry = BigNum.multiplyAddWord(x, count, word, carry);
+      this.write(from, count, x, 0);
+    }
+    if (carry != 0) {
+      x[0] = carry;
+      this.write(this.size ++, 1, x, 0);
+    }
+  }
+
+  // this = this * number, the product is built in a temporary file next to
+  // this one and copied over
+  public void multiply(MappedBigNum number) throws IOException {
+    if (this.size == 0 || number.size == 0) {
+      this.resize(0);
+      return;
+    }
+    Path directory = this.path.toAbsolutePath().getParent();
+    Path file = Files.createTempFile(directory, null, ".limbs");
+    try (MappedBigNum product = new MappedBigNum(this.radix, file,
+        this.region)) {
+      product.product(this, number);
+      int[] x = new int[this.region];
+      for (long from = 0; from < product.size; from += this.region) {
+        int count = (int) Math.min(this.region, product.size - from);
+        product.get(from, count, x, 0);
+        this.put(from, count, x, 0);
+      }
+      this.resize(product.size);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  // Close the file (the value remains in it, the file is cut to it)
+  @Override
+  public void close() throws IOException {
+    if (!this.channel.isOpen()) return;
+    this.unmap(0);
+    try {
+      this.channel.truncate(Integer.BYTES * this.size);
+    } finally {
+      this.channel.close();
+    }
+  }
+
+  /* Protected methods */
+
+  // this = x * y (this is not an operand), operands of at least two long
+  // blocks are multiplied by their spectra, others region by region
+  protected void product(MappedBigNum x, MappedBigNum y) throws IOException {
+    int block = Integer.highestOneBit(Math.min(this.region, BLOCK_MAX));
+    if (block >= BigNum.NTT_THRESHOLD
+        && Math.min(x.size, y.size) > block) { // two blocks at least
+      this.productBySpectra(x, y, block);
+    } else {
+      this.productByRegions(x, y);
+    }
+  }
+
+  // this = x * y, products of region pairs i, j with i + j = block are
+  // summed into a pending sum, its lower region is written and the rest
+  // carries over to the next block
+  protected void productByRegions(MappedBigNum x, MappedBigNum y)
+      throws IOException {
+    int chunk = this.region;
+    long xChunks = (x.size + chunk - 1) / chunk;
+    long yChunks = (y.size + chunk - 1) / chunk;
+    int[] xPart = new int[chunk];
+    int[] yPart = new int[chunk];
+    int[] product = new int[2 * chunk];
+    int[] pending = new int[2 * chunk + 2]; // room for carries of the sum
+    long length = x.size + y.size;
+    long position = 0;
+    for (long block = 0; block < xChunks + yChunks - 1; block ++) {
+      for (long i = Math.max(0, block - yChunks + 1);
+          i <= Math.min(block, xChunks - 1); i ++) {
+        int xLen = x.read(i * chunk, chunk, xPart, 0);
+        int yLen = y.read((block - i) * chunk, chunk, yPart, 0);
+        if (xLen == 0 || yLen == 0) continue;
+        BigNum.multiply(xPart, xLen, yPart, yLen, product);
+        BigNum.addInto(pending, 0, product, xLen + yLen);
+      }
+      this.write(position, chunk, pending, 0); // lower limbs are final
+      position += chunk;
+      System.arraycopy(pending, chunk, pending, 0, pending.length - chunk);
+      Arrays.fill(pending, pending.length - chunk, pending.length, 0);
+    }
+    if (position < length) {
+      this.write(position, (int) (length - position), pending, 0);
+      position = length;
+    }
+    this.size = position;
+    this.resize(this.trimmed(position));
+  }
+
+  // this = x * y, every block of an operand is transformed once (see
+  // spectra), spectra of block pairs i, j with i + j = k are multiplied and
+  // summed pointwise in groups (a group sum must stay below the product
+  // of the primes), every group is transformed back and added to the
+  // pending sum of block k, its lower block is written and the rest
+  // carries over to the next one
+  protected void productBySpectra(MappedBigNum x, MappedBigNum y, int block)
+      throws IOException {
+    int length = 2 * block; // transform length
+    long xBlocks = (x.size + block - 1) / block;
+    long yBlocks = (y.size + block - 1) / block;
+    long bound = (NumberTheoreticTransform.P01 >>> BigNum.LIMB_BITS)
+        * PRIMES[2] >>> BigNum.LIMB_BITS; // product of primes / 2^64
+    long group = Math.max(1, bound / block); // pairs of a group
+    int[][] sums = new int[PRIMES.length][length];
+    int[] xSpectrum = new int[length];
+    int[] ySpectrum = new int[length];
+    int[] sum = new int[length + 2];
+    int[] pending = new int[length + 3]; // room for carries of the sum
+    long position = 0;
+    MappedBigNum xSpectra = this.spectra(x, block);
+    try {
+      MappedBigNum ySpectra = x == y ? xSpectra : this.spectra(y, block);
+      try {
+        for (long k = 0; k < xBlocks + yBlocks - 1; k ++) {
+          long last = Math.min(k, xBlocks - 1);
+          for (long from = Math.max(0, k - yBlocks + 1); from <= last;
+              from += group) {
+            for (int prime = 0; prime < PRIMES.length; prime ++) {
+              Arrays.fill(sums[prime], 0);
+              for (long i = from; i <= Math.min(last, from + group - 1);
+                  i ++) {
+                xSpectra.get((i * PRIMES.length + prime) * length, length,
+                    xSpectrum, 0);
+                ySpectra.get(((k - i) * PRIMES.length + prime) * length,
+                    length, ySpectrum, 0);
+                NumberTheoreticTransform.multiplyAdd(sums[prime], xSpectrum,
+                    ySpectrum, length, PRIMES[prime]);
+              }
+              NumberTheoreticTransform.transform(sums[prime], length,
+                  PRIMES[prime], ROOTS[prime], true);
+            }
+            long carry = NumberTheoreticTransform.recompose(sums, sum,
+                length, 0);
+            sum[length] = (int) carry;
+            sum[length + 1] = (int) (carry >>> BigNum.LIMB_BITS);
+            BigNum.addInto(pending, 0, sum, length + 2);
+          }
+          this.write(position, block, pending, 0); // lower limbs are final
+          position += block;
+          System.arraycopy(pending, block, pending, 0,
+              pending.length - block);
+          Arrays.fill(pending, pending.length - block, pending.length, 0);
+        }
+      } finally {
+        ySpectra.discard();
+      }
+    } finally {
+      xSpectra.discard();
+    }
+    long total = x.size + y.size;
+    if (position < total) {
+      this.write(position, (int) (total - position), pending, 0);
+      position = total;
+    }
+    this.size = position;
+    this.resize(this.trimmed(position));
+  }
+
+  // Spectra of blocks of a number in a temporary file next to this one,
+  // the transform of block i modulo prime p takes 2 * block limbs from
+  // (i * 3 + p) * 2 * block on
+  protected MappedBigNum spectra(MappedBigNum number, int block)
+      throws IOException {
+    Path directory = this.path.toAbsolutePath().getParent();
+    MappedBigNum spectra = new MappedBigNum(this.radix,
+        Files.createTempFile(directory, null, ".spectra"), this.region);
+    try {
+      int length = 2 * block;
+      int[] part = new int[block];
+      int[] spectrum = new int[length];
+      for (long index = 0; index * block < number.size; index ++) {
+        int partLen = number.read(index * block, block, part, 0);
+        for (int prime = 0; prime < PRIMES.length; prime ++) {
+          NumberTheoreticTransform.load(part, partLen, PRIMES[prime],
+              spectrum, length);
+          NumberTheoreticTransform.transform(spectrum, length,
+              PRIMES[prime], ROOTS[prime], false);
+          spectra.put((index * PRIMES.length + prime) * length, length,
+              spectrum, 0);
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      spectra.discard();
+      throw e;
+    }
+    return spectra;
+  }
+
+  // Close and delete a temporary file
+  protected void discard() throws IOException {
+    this.close();
+    Files.deleteIfExists(this.path);
+  }
+
+  // Compare values region by region from the top
+  protected int compare(MappedBigNum number) throws IOException {
+    if (this.size != number.size) return this.size > number.size ? 1 : -1;
+    int[] x = new int[this.region];
+    int[] y = new int[this.region];
+    for (long to = this.size; to > 0;) {
+      long from = Math.max(0, to - this.region);
+      int count = (int) (to - from);
+      this.read(from, count, x, 0);
+      number.read(from, count, y, 0);
+      int result = LimbKernels.KERNELS.compare(x, y, count);
+      if (result != 0) return result;
+      to = from;
+    }
+    return 0;
+  }
+
+  // Read limbs [from, from + count) into x at the offset (limbs past the
+  // value are zeroes), return the count without leading zeroes
+  protected int read(long from, int count, int[] x, int offset)
+      throws IOException {
+    int limbs = (int) Math.max(0, Math.min(count, this.size - from));
+    if (limbs > 0) this.get(from, limbs, x, offset);
+    Arrays.fill(x, offset + limbs, offset + count, 0);
+    while (limbs > 0 && x[offset + limbs - 1] == 0) limbs --;
+    return limbs;
+  }
+
+  // Write count limbs of x at the offset to limbs [from, from + count)
+  // (the file grows as needed)
+  protected void write(long from, int count, int[] x, int offset)
+      throws IOException {
+    this.put(from, count, x, offset);
+  }
+
+  // Copy limbs [from, from + count) of the file into x at the offset
+  protected void get(long from, int count, int[] x, int offset)
+      throws IOException {
+    while (count > 0) {
+      IntBuffer limbs = this.window(from / this.window).asIntBuffer();
+      ((Buffer) limbs).position((int) (from % this.window)); // Java 8
+      int part = Math.min(count, limbs.remaining());
+      limbs.get(x, offset, part);
+      from += part;
+      offset += part;
+      count -= part;
+    }
+  }
+
+  // Copy count limbs of x at the offset to limbs [from, from + count) of
+  // the file
+  protected void put(long from, int count, int[] x, int offset)
+      throws IOException {
+    while (count > 0) {
+      IntBuffer limbs = this.window(from / this.window).asIntBuffer();
+      ((Buffer) limbs).position((int) (from % this.window)); // Java 8
+      int part = Math.min(count, limbs.remaining());
+      limbs.put(x, offset, part);
+      from += part;
+      offset += part;
+      count -= part;
+    }
+  }
+
+  // Mapped window of the given index (mapping grows the file to its end)
+  protected MappedByteBuffer window(long index) throws IOException {
+    MappedByteBuffer map = this.windows.get(index);
+    if (map == null) {
+      map = this.channel.map(FileChannel.MapMode.READ_WRITE,
+          Integer.BYTES * index * this.window,
+          Integer.BYTES * (long) this.window);
+      map.order(ByteOrder.LITTLE_ENDIAN);
+      this.windows.put(index, map);
+    }
+    return map;
+  }
+
+  // Unmap windows from the one holding the given limb on
+  protected void unmap(long limbs) {
+    long first = limbs / this.window;
+    this.windows.entrySet().removeIf(entry -> {
+      if (entry.getKey() < first) return false;
+      OffHeapBigNum.free(entry.getValue());
+      return true;
+    });
+  }
+
+  // Length of the first limbs without leading zeroes
+  protected long trimmed(long limbs) throws IOException {
+    int[] x = new int[(int) Math.min(this.region, Math.max(limbs, 1))];
+    while (limbs > 0) {
+      long from = Math.max(0, limbs - x.length);
+      int count = this.read(from, (int) (limbs - from), x, 0);
+      if (count > 0) return from + count;
+      limbs = from;
+    }
+    return 0;
+  }
+
+  // Set the number of limbs in use, limbs past them are zeroes: the rest of
+  // their window is cleared and the file is cut after it (windows past it
+  // are unmapped first, they must not outlive the file)
+  protected void resize(long limbs) throws IOException {
+    long size = this.size;
+    this.size = limbs;
+    if (limbs >= size) return;
+    long end = (limbs + this.window - 1) / this.window * this.window;
+    long stale = Math.min(size, end); // limbs to clear are below
+    int[] zeroes = new int[(int) Math.min(this.region,
+        Math.max(stale - limbs, 1))];
+    for (long from = limbs; from < stale; from += zeroes.length) {
+      this.put(from, (int) Math.min(zeroes.length, stale - from), zeroes, 0);
+    }
+    if (this.channel.size() > Integer.BYTES * end) {
+      this.unmap(end);
+      this.channel.truncate(Integer.BYTES * end);
+    }
+  }
+
+  /* Overrided methods */
+
+  @Override
+  public String toString() {
+    try {
+      return this.toBigNum().toString();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
+
+/* vim: set si et ts=2 sw=2: */
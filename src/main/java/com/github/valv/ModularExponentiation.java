@@ -0,0 +1,253 @@
+/*
+ * @(#)ModularExponentiation.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+package com.github.valv;
+
+import java.util.Arrays;
+
+/**
+ * ModularExponentiation class computes x^e mod m for limb arrays. Odd
+ * moduli use Montgomery multiplication (P. Montgomery, "Modular
+ * multiplication without trial division", 1985): values are kept as
+ * x * R mod m, R = 2^(32 * k) for a k limb modulus, and every product is
+ * reduced by limb-wise additions of the modulus instead of a division.
+ * Exponent bits are scanned from the top with sliding windows over
+ * a table of odd powers. All buffers are allocated once per exponentiation,
+ * the square and multiply loop does not allocate. Even moduli fall back
+ * to multiplication and division.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+final class ModularExponentiation {
+  // Modulus size (in limbs) where squares are reduced separately
+  static final int SQUARE_THRESHOLD = 128;
+
+  private final int[] modulus; // k limbs, odd
+  private final int k;
+  private final long inverse; // -m^-1 mod 2^32
+  private final int[] t; // k + 1 limbs of the product being reduced
+  private final int[] u; // 2 * k + 1 limbs of the square being reduced
+
+  ModularExponentiation(int[] modulus, int k) {
+    this.modulus = Arrays.copyOf(modulus, k);
+    this.k = k;
+    this.inverse = -inverse(modulus[0]) & BigNum.LIMB_MASK;
+    this.t = new int[k + 1];
+    this.u = new int[k < SQUARE_THRESHOLD ? 0 : 2 * k + 1];
+  }
+
+  // x^e mod m, x < m has k limbs, e > 0, return k limbs
+  int[] power(int[] x, int[] e, int eLen) {
+    int bits = bitLength(e, eLen);
+    int w = window(bits);
+    // Odd powers x, x^3, ... x^(2^w - 1) in Montgomery form
+    int[][] table = new int[1 << (w - 1)][];
+    table[0] = this.toMontgomery(x);
+    if (w > 1) {
+      int[] square = new int[this.k];
+      this.square(table[0], square);
+      for (int index = 1; index < table.length; index ++) {
+        table[index] = new int[this.k];
+        this.multiply(table[index - 1], square, table[index]);
+      }
+    }
+    int[] result = new int[this.k];
+    boolean started = false;
+    for (int bit = bits - 1; bit >= 0;) {
+      if (!testBit(e, bit)) { // square over zero bits
+        this.square(result, result);
+        bit --;
+        continue;
+      }
+      // Longest window (at most w bits) from this bit, ending with one
+      int low = Math.max(bit - w + 1, 0);
+      while (!testBit(e, low)) low ++;
+      int value = 0;
+      for (int index = bit; index >= low; index --) {
+        value = (value << 1) | (testBit(e, index) ? 1 : 0);
+      }
+      if (started) {
+        for (int index = bit; index >= low; index --) {
+          this.square(result, result);
+        }
+        this.multiply(result, table[value >>> 1], result);
+      } else { // the first window sets the result
+        System.arraycopy(table[value >>> 1], 0, result, 0, this.k);
+        started = true;
+      }
+      bit = low - 1;
+    }
+    int[] one = new int[this.k];
+    one[0] = 1;
+    this.multiply(result, one, result); // leave Montgomery form
+    return result;
+  }
+
+  // z = x * y / R mod m, all of k limbs, z may be x or y (FIOS method:
+  // every step adds x * y[i] and m * q in one pass and shifts by a limb)
+  void multiply(int[] x, int[] y, int[] z) {
+    int[] t = this.t, m = this.modulus;
+    int k = this.k;
+    Arrays.fill(t, 0, k + 1, 0);
+    long x0 = x[0] & BigNum.LIMB_MASK, m0 = m[0] & BigNum.LIMB_MASK;
+    for (int i = 0; i < k; i ++) {
+      long factor = y[i] & BigNum.LIMB_MASK;
+      long sum = (t[0] & BigNum.LIMB_MASK) + x0 * factor;
+      // q makes the lowest limb of t + x * y[i] + m * q zero
+      long q = (sum & BigNum.LIMB_MASK) * this.inverse & BigNum.LIMB_MASK;
+      long carry = sum >>> BigNum.LIMB_BITS;
+      long reduction = ((sum & BigNum.LIMB_MASK) + q * m0)
+          >>> BigNum.LIMB_BITS;
+      for (int j = 1; j < k; j ++) {
+        sum = (t[j] & BigNum.LIMB_MASK)
+            + (x[j] & BigNum.LIMB_MASK) * factor + carry;
+        carry = sum >>> BigNum.LIMB_BITS;
+        reduction += (sum & BigNum.LIMB_MASK) + q * (m[j] & BigNum.LIMB_MASK);
+        t[j - 1] = (int) reduction;
+        reduction >>>= BigNum.LIMB_BITS;
+      }
+      sum = (t[k] & BigNum.LIMB_MASK) + carry + reduction;
+      t[k - 1] = (int) sum;
+      t[k] = (int) (sum >>> BigNum.LIMB_BITS);
+    }
+    // t < 2m, subtract m once if needed
+    if (t[k] != 0 || compare(t, m, k) >= 0) {
+      BigNum.subtractFrom(t, k + 1, m, k);
+    }
+    System.arraycopy(t, 0, z, 0, k);
+  }
+
+  // z = x * x / R mod m, x and z of k limbs, z may be x (the square is
+  // computed first, then reduced limb by limb: SOS method)
+  void square(int[] x, int[] z) {
+    int[] u = this.u, m = this.modulus;
+    int k = this.k;
+    if (k < SQUARE_THRESHOLD) { // fused multiplication is faster
+      this.multiply(x, x, z);
+      return;
+    }
+    int xLen = BigNum.trimmed(x, k);
+    Arrays.fill(u, 2 * xLen, 2 * k + 1, 0);
+    if (xLen > 0) BigNum.square(x, xLen, u);
+    for (int i = 0; i < k; i ++) {
+      // u = u + m * q * 2^(32 * i), where q makes limb i zero
+      long q = (u[i] & BigNum.LIMB_MASK) * this.inverse & BigNum.LIMB_MASK;
+      long carry = 0;
+      for (int j = 0; j < k; j ++) {
+        carry += (u[i + j] & BigNum.LIMB_MASK)
+            + q * (m[j] & BigNum.LIMB_MASK);
+        u[i + j] = (int) carry;
+        carry >>>= BigNum.LIMB_BITS;
+      }
+      for (int j = i + k; carry != 0; j ++) {
+        carry += u[j] & BigNum.LIMB_MASK;
+        u[j] = (int) carry;
+        carry >>>= BigNum.LIMB_BITS;
+      }
+    }
+    // u / R < 2m, subtract m once if needed
+    int[] t = this.t;
+    System.arraycopy(u, k, t, 0, k + 1);
+    if (t[k] != 0 || compare(t, m, k) >= 0) {
+      BigNum.subtractFrom(t, k + 1, m, k);
+    }
+    System.arraycopy(t, 0, z, 0, k);
+  }
+
+  // x * R mod m, x < m
+  int[] toMontgomery(int[] x) {
+    int xLen = BigNum.trimmed(x, x.length);
+    int[] shifted = new int[xLen + this.k];
+    System.arraycopy(x, 0, shifted, this.k, xLen);
+    int[] remainder = BigNum.divide(shifted, shifted.length, this.modulus,
+        BigNum.trimmed(this.modulus, this.k),
+        new int[shifted.length + 1]);
+    return Arrays.copyOf(remainder, this.k);
+  }
+
+  // x^e mod m for any modulus m (mLen limbs) by multiplication and
+  // division, x < m, e > 0, return remainder without leading zeroes
+  static int[] powerByDivision(int[] x, int xLen, int[] e, int eLen,
+      int[] m, int mLen) {
+    int[] result = Arrays.copyOf(x, xLen);
+    int[] product = new int[2 * mLen];
+    int[] quotient = new int[2 * mLen + 1];
+    for (int bit = bitLength(e, eLen) - 2; bit >= 0; bit --) {
+      result = reduce(result, result, product, quotient, m, mLen);
+      if (testBit(e, bit)) {
+        result = reduce(result, x, product, quotient, m, mLen);
+      }
+    }
+    return result;
+  }
+
+  // x * y mod m
+  static int[] reduce(int[] x, int[] y, int[] product, int[] quotient,
+      int[] m, int mLen) {
+    if (x.length == 0 || y.length == 0) return x.length == 0 ? x : y;
+    int zLen = x.length + y.length;
+    BigNum.multiply(x, x.length, y, y.length, product);
+    return BigNum.divide(product, BigNum.trimmed(product, zLen), m, mLen,
+        quotient);
+  }
+
+  /* Helpers */
+
+  // x^-1 mod 2^32 for odd x (Newton iteration doubles correct bits)
+  static int inverse(int x) {
+    int inverse = x; // correct to 3 bits
+    for (int step = 0; step < 4; step ++) inverse *= 2 - x * inverse;
+    return inverse;
+  }
+
+  // Window size by exponent length (as in java.math.BigInteger)
+  static int window(int bits) {
+    int[] bounds = {7, 25, 81, 241, 673, 1793};
+    int w = 1;
+    while (w <= bounds.length && bits > bounds[w - 1]) w ++;
+    return w;
+  }
+
+  static boolean testBit(int[] x, int bit) {
+    return (x[bit / BigNum.LIMB_BITS] & (1 << (bit % BigNum.LIMB_BITS))) != 0;
+  }
+
+  static int bitLength(int[] x, int xLen) {
+    xLen = BigNum.trimmed(x, xLen);
+    if (xLen == 0) return 0;
+    return xLen * BigNum.LIMB_BITS - Integer.numberOfLeadingZeros(x[xLen - 1]);
+  }
+
+  // Compare k limbs of x and y
+  static int compare(int[] x, int[] y, int k) {
+    for (int index = k - 1; index >= 0; index --) {
+      if (x[index] != y[index]) {
+        return Integer.compareUnsigned(x[index], y[index]);
+      }
+    }
+    return 0;
+  }
+}
+
+/* vim: set si et ts=2 sw=2: */
@@ -0,0 +1,267 @@
+/*
+ * @(#)MutableBigNum.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+package com.github.valv;
+
+import java.util.Arrays;
+
+/**
+ * MutableBigNum class provides an unsigned accumulator with preallocated
+ * storage. Capacity is given in digits of the radix, limbs and a scratch
+ * buffer of the same size are allocated once and never shrink, so sums and
+ * products in a loop run in place as long as the capacity suffices.
+ * Operands that can not be processed (null or infinity) are ignored.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+public class MutableBigNum {
+  protected byte radix = BigNum.RADIX_DEFAULT;
+  protected int size = 0; // limbs in use
+  protected int[] data; // limbs, least significant first
+  protected int[] scratch; // products are built here, then buffers swap
+
+  /* Constructors */
+
+  // Capacity constructor
+  public MutableBigNum(int capacity) {
+    this(capacity, BigNum.RADIX_DEFAULT); // default radix is 10
+  }
+
+  // Capacity/radix constructor
+  public MutableBigNum(int capacity, byte radix) {
+    this.radix = BigNum.trimRadix(radix);
+    int limbs = BigNum.limbsForDigits(Math.max(capacity, 1), this.radix);
+    this.data = new int[limbs];
+    this.scratch = new int[limbs];
+  }
+
+  // Object (BigNum) constructor
+  public MutableBigNum(BigNum number) {
+    this(number.length(), number.radix);
+    this.set(number);
+  }
+
+  /* Public methods */
+
+  // Make room for numbers of the given number of digits
+  public void ensureCapacity(int capacity) {
+    this.reserve(BigNum.limbsForDigits(capacity, this.radix));
+  }
+
+  // Capacity in digits of the radix
+  public int capacity() {
+    return (int) ((this.data.length - 1) * BigNum.LIMB_BITS
+        / (Math.log(this.radix) / Math.log(2)));
+  }
+
+  // Copy value of a number into the accumulator
+  public void set(BigNum number) {
+    if (number.isOffHeap()) { // work on a heap copy of parked limbs
+      BigNum copy = number.onHeap();
+      this.set(copy);
+      copy.releaseLimbs();
+      return;
+    }
+    if (number.data == null || number.size < 0) return;
+    this.reserve(number.size);
+    System.arraycopy(number.data, 0, this.data, 0, number.size);
+    this.size = number.size;
+  }
+
+  // Reset value to zero (capacity remains)
+  public void clear() {
+    this.size = 0;
+  }
+
+  // this = this + number
+  public void addTo(BigNum number) {
+    if (number.isOffHeap()) { // work on a heap copy of parked limbs
+      BigNum copy = number.onHeap();
+      this.addTo(copy);
+      copy.releaseLimbs();
+      return;
+    }
+    if (number.data == null || number.size <= 0) return;
+    this.reserve(Math.max(this.size, number.size) + 1);
+    this.accumulate(number.data, number.size);
+  }
+
+  // this = this + word (unsigned)
+  public void addTo(int word) {
+    this.reserve(this.size + 1);
+    long carry = word & BigNum.LIMB_MASK;
+    for (int index = 0; carry != 0 && index < this.size; index ++) {
+      carry += this.data[index] & BigNum.LIMB_MASK;
+      this.data[index] = (int) carry;
+      carry >>>= BigNum.LIMB_BITS;
+    }
+    if (carry != 0) this.data[this.size ++] = (int) carry;
+  }
+
+  // this = this * number
+  public void mulTo(BigNum number) {
+    if (number.isOffHeap()) { // work on a heap copy of parked limbs
+      BigNum copy = number.onHeap();
+      this.mulTo(copy);
+      copy.releaseLimbs();
+      return;
+    }
+    if (number.data == null || number.size < 0) return;
+    if (number.size == 1) {
+      this.mulTo(number.data[0]);
+      return;
+    }
+    if (this.size == 0 || number.size == 0) {
+      this.size = 0;
+      return;
+    }
+    int productSize = this.size + number.size;
+    this.reserve(productSize);
+    BigNum.multiply(this.data, this.size, number.data, number.size,
+        this.scratch);
+    this.swap(productSize);
+  }
+
+  // this = this * word (unsigned)
+  public void mulTo(int word) {
+    this.reserve(this.size + 1);
+    int carry = BigNum.multiplyAddWord(this.data, this.size, word, 0);
+    if (carry != 0) this.data[this.size ++] = carry;
+    this.size = BigNum.trimmed(this.data, this.size);
+  }
+
+  // this = this + x * y (fused multiply and add)
+  public void fma(BigNum x, BigNum y) {
+    if (x.isOffHeap() || y.isOffHeap()) { // work on heap copies
+      BigNum xCopy = x.onHeap(), yCopy = y.onHeap();
+      this.fma(xCopy, yCopy);
+      xCopy.releaseLimbs();
+      yCopy.releaseLimbs();
+      return;
+    }
+    if (x.data == null || y.data == null || x.size <= 0 || y.size <= 0) {
+      return;
+    }
+    if (y.size == 1) {
+      this.fma(x, y.data[0]);
+      return;
+    }
+    if (x.size == 1) {
+      this.fma(y, x.data[0]);
+      return;
+    }
+    int productSize = x.size + y.size;
+    this.reserve(Math.max(this.size, productSize) + 1);
+    BigNum.multiply(x.data, x.size, y.data, y.size, this.scratch);
+    this.accumulate(this.scratch, BigNum.trimmed(this.scratch, productSize));
+  }
+
+  // this = this + x * word (unsigned)
+  public void fma(BigNum x, int word) {
+    if (x.isOffHeap()) { // work on a heap copy of parked limbs
+      BigNum copy = x.onHeap();
+      this.fma(copy, word);
+      copy.releaseLimbs();
+      return;
+    }
+    if (x.data == null || x.size <= 0 || word == 0) return;
+    this.reserve(Math.max(this.size, x.size + 1) + 1);
+    long factor = word & BigNum.LIMB_MASK;
+    long carry = 0;
+    int index = 0;
+    for (; index < x.size; index ++) {
+      long limb = index < this.size ? this.data[index] & BigNum.LIMB_MASK : 0;
+      carry += limb + (x.data[index] & BigNum.LIMB_MASK) * factor;
+      this.data[index] = (int) carry;
+      carry >>>= BigNum.LIMB_BITS;
+    }
+    for (; carry != 0 || index < this.size; index ++) {
+      long limb = index < this.size ? this.data[index] & BigNum.LIMB_MASK : 0;
+      carry += limb;
+      this.data[index] = (int) carry;
+      carry >>>= BigNum.LIMB_BITS;
+    }
+    this.size = BigNum.trimmed(this.data, index);
+  }
+
+  // Copy into a new BigNum
+  public BigNum toBigNum() {
+    return new BigNum(Arrays.copyOf(this.data, Math.max(this.size, 1)),
+        this.size, this.radix);
+  }
+
+  public int length() {
+    // Show the length of the accumulated number (in digits of its radix)
+    return this.toBigNum().length();
+  }
+
+  /* Protected methods */
+
+  // Make room for the given number of limbs in both buffers
+  protected void reserve(int limbs) {
+    if (this.data.length < limbs) {
+      int capacity = Math.max(limbs,
+          this.data.length + (this.data.length >> 1));
+      this.data = Arrays.copyOf(this.data, capacity);
+      this.scratch = new int[capacity];
+    }
+  }
+
+  // data = data + x (data has room for the sum)
+  protected void accumulate(int[] x, int xLen) {
+    int index = 0;
+    long carry = 0;
+    for (; index < xLen; index ++) {
+      long limb = index < this.size ? this.data[index] & BigNum.LIMB_MASK : 0;
+      carry += limb + (x[index] & BigNum.LIMB_MASK);
+      this.data[index] = (int) carry;
+      carry >>>= BigNum.LIMB_BITS;
+    }
+    for (; carry != 0 && index < this.size; index ++) {
+      carry += this.data[index] & BigNum.LIMB_MASK;
+      this.data[index] = (int) carry;
+      carry >>>= BigNum.LIMB_BITS;
+    }
+    if (index > this.size) this.size = index;
+    if (carry != 0) this.data[this.size ++] = (int) carry;
+  }
+
+  // Product in scratch becomes the value, old limbs become scratch
+  protected void swap(int productSize) {
+    int[] product = this.scratch;
+    this.scratch = this.data;
+    this.data = product;
+    this.size = BigNum.trimmed(product, productSize);
+  }
+
+  /* Overrided methods */
+
+  @Override
+  public String toString() {
+    if (this.size == 0) return "0";
+    return RadixConversion.format(this.data, this.size, this.radix);
+  }
+}
+
+/* vim: set si et ts=2 sw=2: */
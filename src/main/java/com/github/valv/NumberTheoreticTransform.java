@@ -0,0 +1,253 @@
+/*
+ * @(#)NumberTheoreticTransform.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+package com.github.valv;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * NumberTheoreticTransform class implements exact O(n log n) multiplication
+ * of limb arrays. Limbs are convolved modulo three primes of the form
+ * c * 2^k + 1 with number theoretic transforms, then every coefficient of
+ * the convolution is restored with the Chinese remainder theorem (Garner's
+ * algorithm). Three 31 bit primes hold up to 2^92 per coefficient, which
+ * is enough for 2^24 limbs (over 10^8 decimal digits) per operand.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+final class NumberTheoreticTransform {
+  // Primes, their primitive roots and the largest transform they allow
+  static final int[] PRIMES = {2013265921, 1811939329, 2113929217};
+  static final int[] ROOTS = {31, 13, 5};
+  static final int MAX_LENGTH = 1 << 25;
+
+  // Butterflies per task in parallel transforms
+  static final int PARALLEL_GRAIN = 1 << 14;
+
+  // Garner's constants: p0^-1 mod p1 and (p0 * p1)^-1 mod p2
+  static final long P01 = (long) PRIMES[0] * PRIMES[1];
+  static final long INVERSE_P0 = inverse(PRIMES[0], PRIMES[1]);
+  static final long INVERSE_P01 = inverse(P01 % PRIMES[2], PRIMES[2]);
+
+  private NumberTheoreticTransform() {
+  }
+
+  // Check whether the product length can be transformed
+  static boolean fits(int zLen) {
+    return zLen <= MAX_LENGTH;
+  }
+
+  // z = x * y, z has xLen + yLen limbs
+  static void multiply(int[] x, int xLen, int[] y, int yLen, int[] z) {
+    multiply(x, xLen, y, yLen, z, false);
+  }
+
+  // The same, in parallel residues and butterflies run as fork/join tasks
+  // (the caller must run in a fork/join pool)
+  static void multiply(int[] x, int xLen, int[] y, int yLen, int[] z,
+      boolean parallel) {
+    int length = 1;
+    while (length < xLen + yLen) length <<= 1;
+    int[][] residues = new int[PRIMES.length][];
+    if (parallel) {
+      List<ForkJoinTask<?>> tasks = new ArrayList<>();
+      for (int index = 0; index < PRIMES.length; index ++) {
+        final int prime = index, size = length;
+        tasks.add(ForkJoinTask.adapt(() -> residues[prime] =
+            convolve(x, xLen, y, yLen, size, prime, true)));
+      }
+      ForkJoinTask.invokeAll(tasks);
+    } else {
+      for (int index = 0; index < PRIMES.length; index ++) {
+        residues[index] = convolve(x, xLen, y, yLen, length, index, false);
+      }
+    }
+    recompose(residues, z, xLen + yLen);
+    for (int[] residue : residues) ScratchArena.release(residue);
+  }
+
+  // Cyclic convolution of limbs modulo the prime of the given index in
+  // the first length elements of a borrowed array (see ScratchArena, it
+  // may be longer)
+  static int[] convolve(int[] x, int xLen, int[] y, int yLen, int length,
+      int index, boolean parallel) {
+    int prime = PRIMES[index];
+    int[] convolution = ScratchArena.borrow(length);
+    load(x, xLen, prime, convolution, length);
+    transform(convolution, length, prime, ROOTS[index], false, parallel);
+    int[] work = convolution; // x * x needs one forward transform
+    if (x != y || xLen != yLen) {
+      work = ScratchArena.borrow(length);
+      load(y, yLen, prime, work, length);
+      transform(work, length, prime, ROOTS[index], false, parallel);
+    }
+    multiply(convolution, work, length, prime);
+    transform(convolution, length, prime, ROOTS[index], true, parallel);
+    if (work != convolution) ScratchArena.release(work);
+    return convolution;
+  }
+
+  // Reduce limbs modulo prime into the first length elements of a transform
+  // buffer, zero padded
+  static void load(int[] x, int xLen, int prime, int[] buffer, int length) {
+    for (int index = 0; index < xLen; index ++) {
+      buffer[index] = (int) ((x[index] & BigNum.LIMB_MASK) % prime);
+    }
+    Arrays.fill(buffer, xLen, length, 0);
+  }
+
+  // In place iterative transform of the first length (a power of two)
+  // elements (Cooley-Tukey, decimation in time)
+  static void transform(int[] a, int length, int prime, int root,
+      boolean inverse) {
+    transform(a, length, prime, root, inverse, false);
+  }
+
+  // The same, in parallel butterflies of a stage are split into tasks
+  static void transform(int[] a, int length, int prime, int root,
+      boolean inverse, boolean parallel) {
+    for (int i = 1, j = 0; i < length; i ++) { // bit reversal permutation
+      int bit = length >> 1;
+      for (; (j & bit) != 0; bit >>= 1) j ^= bit;
+      j ^= bit;
+      if (i < j) {
+        int swap = a[i];
+        a[i] = a[j];
+        a[j] = swap;
+      }
+    }
+    long[] twiddles = new long[Math.max(1, length >> 1)];
+    if (inverse) root = (int) power(root, prime - 2, prime);
+    for (int span = 2; span <= length; span <<= 1) {
+      int half = span >> 1;
+      long step = power(root, (prime - 1) / span, prime);
+      twiddles[0] = 1;
+      for (int k = 1; k < half; k ++) {
+        twiddles[k] = twiddles[k - 1] * step % prime;
+      }
+      if (parallel && length > PARALLEL_GRAIN) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int from = 0; from < length >> 1; from += PARALLEL_GRAIN) {
+          final int start = from, size = span;
+          tasks.add(ForkJoinTask.adapt(() -> butterflies(a, prime, twiddles,
+              size, start, start + PARALLEL_GRAIN)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+      } else {
+        butterflies(a, prime, twiddles, span, 0, length >> 1);
+      }
+    }
+    if (inverse) { // scale by 1 / length
+      long scale = power(length, prime - 2, prime);
+      for (int index = 0; index < length; index ++) {
+        a[index] = (int) (a[index] * scale % prime);
+      }
+    }
+  }
+
+  // Butterflies [from, to) of a stage, butterfly i pairs elements k and
+  // k + span / 2 of block i / (span / 2), where k = i % (span / 2)
+  static void butterflies(int[] a, int prime, long[] twiddles, int span,
+      int from, int to) {
+    int half = span >> 1;
+    int start = from / half * span, k = from % half;
+    for (int index = from; index < to; index ++) {
+      long u = a[start + k];
+      long v = a[start + k + half] * twiddles[k] % prime;
+      long sum = u + v, difference = u - v;
+      a[start + k] = (int) (sum >= prime ? sum - prime : sum);
+      a[start + k + half] = (int) (difference < 0
+          ? difference + prime : difference);
+      if (++ k == half) { // next block
+        k = 0;
+        start += span;
+      }
+    }
+  }
+
+  // a = a * b pointwise modulo prime (first length elements)
+  static void multiply(int[] a, int[] b, int length, int prime) {
+    for (int index = 0; index < length; index ++) {
+      a[index] = (int) ((long) a[index] * b[index] % prime);
+    }
+  }
+
+  // sum = sum + a * b pointwise modulo prime (first length elements)
+  static void multiplyAdd(int[] sum, int[] a, int[] b, int length,
+      int prime) {
+    for (int index = 0; index < length; index ++) {
+      long value = sum[index] + (long) a[index] * b[index] % prime;
+      sum[index] = (int) (value >= prime ? value - prime : value);
+    }
+  }
+
+  // Restore coefficients from residues and propagate carries into z
+  static void recompose(int[][] residues, int[] z, int zLen) {
+    recompose(residues, z, zLen, 0);
+  }
+
+  // The same with a carry in, return the carry out
+  static long recompose(int[][] residues, int[] z, int zLen, long carry) {
+    long p0 = PRIMES[0], p1 = PRIMES[1], p2 = PRIMES[2];
+    long p01Lower = P01 & BigNum.LIMB_MASK;
+    long p01Upper = P01 >>> BigNum.LIMB_BITS;
+    for (int index = 0; index < zLen; index ++) {
+      long r0 = residues[0][index], r1 = residues[1][index];
+      long r2 = residues[2][index];
+      // x01 = r0 + p0 * t < p0 * p1, x = x01 + p0 * p1 * u < 2^93
+      long t = (r1 - r0 % p1 + p1) % p1 * INVERSE_P0 % p1;
+      long x01 = r0 + p0 * t;
+      long u = (r2 - x01 % p2 + p2) % p2 * INVERSE_P01 % p2;
+      long lowerProduct = p01Lower * u, upperProduct = p01Upper * u;
+      long lower = (lowerProduct & BigNum.LIMB_MASK)
+          + (x01 & BigNum.LIMB_MASK) + (carry & BigNum.LIMB_MASK);
+      z[index] = (int) lower;
+      carry = (lowerProduct >>> BigNum.LIMB_BITS) + upperProduct
+          + (x01 >>> BigNum.LIMB_BITS) + (carry >>> BigNum.LIMB_BITS)
+          + (lower >>> BigNum.LIMB_BITS);
+    }
+    return carry;
+  }
+
+  // base^exponent mod modulus
+  static long power(long base, long exponent, long modulus) {
+    long result = 1;
+    base %= modulus;
+    for (; exponent > 0; exponent >>= 1) {
+      if ((exponent & 1) != 0) result = result * base % modulus;
+      base = base * base % modulus;
+    }
+    return result;
+  }
+
+  // value^-1 mod prime
+  static long inverse(long value, long prime) {
+    return power(value, prime - 2, prime);
+  }
+}
+
+/* vim: set si et ts=2 sw=2: */
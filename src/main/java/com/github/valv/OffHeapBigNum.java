@@ -0,0 +1,636 @@
+/*
+ * @(#)OffHeapBigNum.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+package com.github.valv;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * OffHeapBigNum class keeps large values out of the garbage collected heap.
+ * Values of at least the threshold are parked in a direct buffer of little
+ * endian limbs (the buffer is reused while it fits and grows by half),
+ * smaller values stay in the limb array. Comparison, bit length, the binary
+ * form, addition and subtraction run on the buffer band by band.
+ * Multiplication and division copy the limbs to arrays borrowed from
+ * ScratchArena and park the result back, other operations (and other
+ * numbers taking an off-heap operand) work on such a borrowed copy for
+ * their time. Borrowed arrays go back to the arena, so repeated operations
+ * do not allocate heap arrays once the arena holds arrays of their sizes
+ * (arrays above the largest pooled size, 2^26 limbs, are allocated every
+ * time). Native memory is freed by close() (the value becomes null), or by
+ * the garbage collector if close() is not called.
+ *
+ * Native memory is only touched under the monitor of the number, so a
+ * number can be shared between threads: close() waits for a running
+ * operation, and operations after close() see the null value instead of
+ * freed memory. Operands are copied to the heap before the monitor is
+ * taken, so a thread never holds the monitors of two numbers.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+public class OffHeapBigNum extends BigNum implements AutoCloseable {
+  // Size (in limbs) where values go off heap by default
+  static final int THRESHOLD = 1 << 15;
+
+  // Limbs per band of operations running on the buffer
+  static final int BAND = 1 << 12;
+
+  // Unsafe.invokeCleaner (JDK 9 and higher) frees a direct buffer at once
+  private static final Object UNSAFE;
+  private static final Method INVOKE_CLEANER;
+
+  static {
+    Object unsafe = null;
+    Method invokeCleaner = null;
+    try {
+      Class<?> type = Class.forName("sun.misc.Unsafe");
+      Field field = type.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      unsafe = field.get(null);
+      invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      invokeCleaner = null; // older runtimes leave buffers to the collector
+    }
+    UNSAFE = unsafe;
+    INVOKE_CLEANER = invokeCleaner;
+  }
+
+  protected final int threshold; // limbs
+  protected ByteBuffer storage; // limbs of a parked value, kept for reuse
+  protected boolean parked; // limbs are in storage, data is null
+  protected int[] loaded; // borrowed limbs of a loaded value (see load)
+
+  /* Constructors */
+
+  // Object (BigNum) constructor
+  public OffHeapBigNum(BigNum number) {
+    super(number);
+    this.threshold = THRESHOLD;
+    this.park();
+  }
+
+  // Object (BigNum)/threshold constructor, values of at least threshold
+  // digits go off heap
+  public OffHeapBigNum(BigNum number, int threshold) {
+    super(number);
+    this.threshold = limbsForDigits(Math.max(threshold, 1), this.radix);
+    this.park();
+  }
+
+  // String/radix constructor
+  public OffHeapBigNum(String number, byte radix) {
+    this(new BigNum(number, radix));
+  }
+
+  /* Public methods */
+
+  // Check whether the value is parked off heap
+  @Override
+  public synchronized boolean isOffHeap() {
+    return this.parked;
+  }
+
+  // Native memory in use (in bytes)
+  public synchronized long offHeapSize() {
+    return this.storage == null ? 0 : this.storage.capacity();
+  }
+
+  // Free native memory, the value becomes null (running operations of other
+  // threads finish first)
+  @Override
+  public synchronized void close() {
+    this.text = null; // value changes
+    this.parked = false;
+    this.data = null;
+    this.size = 0;
+    this.freeStorage();
+  }
+
+  // Addition method, parked limbs are added in place band by band
+  @Override
+  public void add(BigNum number) {
+    BigNum operand = number.onHeap(); // before the monitor is taken
+    this.addLocked(operand);
+    if (operand != number) operand.releaseLimbs(); // a copy of the limbs
+  }
+
+  // Subtraction method, parked limbs are subtracted in place band by band
+  @Override
+  public void subtract(BigNum number) {
+    BigNum operand = number.onHeap();
+    this.subtractLocked(operand);
+    if (operand != number) operand.releaseLimbs();
+  }
+
+  // Multiplication method, the product of borrowed copies is parked
+  @Override
+  public void multiply(BigNum number) {
+    if (number == this) { // x * x
+      this.square();
+      return;
+    }
+    BigNum operand = number.onHeap();
+    this.multiplyLocked(operand);
+    if (operand != number) operand.releaseLimbs();
+  }
+
+  // Squaring method, the square of a borrowed copy is parked
+  @Override
+  public synchronized void square() {
+    if (!isPlain(this) || this.size == 1
+        || (!this.parked && 2 * this.size < this.threshold)) {
+      this.load();
+      super.square();
+      this.park();
+      return;
+    }
+    this.text = null; // value changes
+    int[] x = this.parked ? this.limbs() : this.data;
+    int length = 2 * this.size;
+    int[] product = ScratchArena.borrow(length);
+    Arrays.fill(product, 0, length, 0); // borrowed arrays are not cleared
+    square(x, this.size, product);
+    if (this.parked) ScratchArena.release(x);
+    this.store(product, trimmed(product, length));
+    ScratchArena.release(product);
+  }
+
+  // Division method, the quotient of borrowed copies is parked
+  @Override
+  public BigNum divide(BigNum number, BigNum remainder) {
+    if (remainder == this || remainder == number) {
+      remainder = new BigNum(); // operands can not hold the remainder
+    }
+    BigNum operand = number.onHeap();
+    BigNum rest = remainder instanceof OffHeapBigNum ? new BigNum() : remainder;
+    this.divideLocked(operand, rest);
+    if (operand != number) operand.releaseLimbs();
+    if (rest != remainder) { // one monitor at a time
+      remainder.radix = rest.radix;
+      remainder.setZero();
+      remainder.add(rest);
+    }
+    return remainder;
+  }
+
+  @Override
+  public void modPow(BigNum exponent, BigNum modulus) {
+    BigNum power = exponent.onHeap();
+    BigNum operand = modulus.onHeap();
+    this.modPowLocked(power, operand);
+    if (power != exponent) power.releaseLimbs();
+    if (operand != modulus) operand.releaseLimbs();
+  }
+
+  @Override
+  public synchronized BigNum iroot(int k) {
+    this.load();
+    BigNum remainder = super.iroot(k);
+    this.park();
+    return remainder;
+  }
+
+  @Override
+  public synchronized BigNum lowDigits(int digits) {
+    BigNum copy = this.onHeap();
+    if (copy == this) return super.lowDigits(digits);
+    BigNum result = copy.lowDigits(digits);
+    copy.releaseLimbs();
+    return result;
+  }
+
+  @Override
+  public synchronized BigNum highDigits(int digits) {
+    BigNum copy = this.onHeap();
+    if (copy == this) return super.highDigits(digits);
+    BigNum result = copy.highDigits(digits);
+    copy.releaseLimbs();
+    return result;
+  }
+
+  // Write the binary form, parked limbs are copied straight from native
+  // memory
+  @Override
+  public synchronized void writeTo(ByteBuffer buffer) {
+    if (!this.parked) {
+      super.writeTo(buffer);
+      return;
+    }
+    if (buffer.remaining() < this.binarySize()) {
+      throw new BufferOverflowException();
+    }
+    ByteBuffer output = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    output.put(BINARY_VERSION).put(this.binaryFlags()).put(this.radix)
+        .putInt(this.size);
+    ByteBuffer limbs = this.storage.duplicate();
+    ((Buffer) limbs).limit(Integer.BYTES * this.size); // Java 8 linkage
+    output.put(limbs);
+    ((Buffer) buffer).position(buffer.position() + this.binarySize());
+  }
+
+  @Override
+  public synchronized int length() {
+    return super.length();
+  }
+
+  /* Protected methods */
+
+  // Heap copy of a parked value in borrowed limbs (releaseLimbs() gives
+  // them back)
+  @Override
+  protected synchronized BigNum onHeap() {
+    if (!this.parked) return this;
+    return new HeapCopy(this.limbs(), this.size, this.radix);
+  }
+
+  // Comparison method, parked limbs are compared from the top band by band
+  @Override
+  protected int compare(BigNum number) {
+    BigNum operand = number.onHeap();
+    int comparison = this.compareLocked(operand);
+    if (operand != number) operand.releaseLimbs();
+    return comparison;
+  }
+
+  @Override
+  protected void multiplyInPool(BigNum number, ForkJoinPool pool,
+      int cutoff) {
+    BigNum operand = number.onHeap();
+    this.multiplyInPoolLocked(operand, pool, cutoff);
+    if (operand != number) operand.releaseLimbs();
+  }
+
+  @Override
+  protected synchronized int bitLength() {
+    if (!this.parked) return super.bitLength();
+    return this.size * LIMB_BITS - Integer.numberOfLeadingZeros(
+        this.storage.getInt(Integer.BYTES * (this.size - 1)));
+  }
+
+  @Override
+  protected synchronized void writeTo(Appendable appendable,
+      WritableByteChannel channel) throws IOException {
+    BigNum copy = this.onHeap();
+    if (copy == this) {
+      super.writeTo(appendable, channel);
+      return;
+    }
+    copy.writeTo(appendable, channel);
+    copy.releaseLimbs();
+  }
+
+  @Override
+  protected synchronized int binaryLimbs() {
+    return this.parked ? this.size : super.binaryLimbs();
+  }
+
+  @Override
+  protected synchronized byte binaryFlags() {
+    return this.parked ? 0 : super.binaryFlags();
+  }
+
+  @Override
+  protected synchronized void shiftDigits(long digits) {
+    this.load();
+    super.shiftDigits(digits);
+    this.park();
+  }
+
+  @Override
+  protected synchronized void shiftBits(long bits) {
+    this.load();
+    super.shiftBits(bits);
+    this.park();
+  }
+
+  // A parked value set to zero in place comes back to the heap
+  @Override
+  protected synchronized void setZero() {
+    this.parked = false;
+    super.setZero();
+  }
+
+  // Bring parked limbs to a borrowed array for the time of an operation
+  // (the buffer is kept for reuse)
+  protected synchronized void load() {
+    if (!this.parked) return;
+    this.loaded = this.limbs();
+    this.data = this.loaded;
+    this.parked = false;
+  }
+
+  // Move limbs of a large value off heap (nested operations park once),
+  // release the buffer when the value becomes small or special, give
+  // loaded limbs back to the arena
+  protected synchronized void park() {
+    if (this.parked) return;
+    int[] loaded = this.loaded;
+    this.loaded = null;
+    if (this.data == null || this.size < this.threshold) {
+      this.freeStorage();
+      if (loaded != null && this.data == loaded) { // keep a heap copy
+        this.data = Arrays.copyOf(loaded, Math.max(this.size, 1));
+      }
+    } else {
+      this.reserve(this.size);
+      this.storage.asIntBuffer().put(this.data, 0, this.size);
+      this.data = null;
+      this.parked = true;
+    }
+    if (loaded != null) ScratchArena.release(loaded);
+  }
+
+  // Borrowed copy of parked limbs (ScratchArena takes it back)
+  protected synchronized int[] limbs() {
+    int[] limbs = ScratchArena.borrow(Math.max(this.size, 1));
+    this.storage.asIntBuffer().get(limbs, 0, this.size);
+    return limbs;
+  }
+
+  // Free the buffer (no views of it are kept, so it is not used after)
+  protected synchronized void freeStorage() {
+    ByteBuffer buffer = this.storage;
+    this.storage = null;
+    if (buffer != null) free(buffer);
+  }
+
+  // Free native memory of a direct (or mapped) buffer at once, the buffer
+  // must not be used after
+  static void free(ByteBuffer buffer) {
+    if (INVOKE_CLEANER == null) return;
+    try {
+      INVOKE_CLEANER.invoke(UNSAFE, buffer);
+    } catch (ReflectiveOperationException e) {
+      // the collector frees the buffer later
+    }
+  }
+
+  /* Operations under the monitor, operands are on the heap */
+
+  private synchronized void addLocked(BigNum number) {
+    if (!this.parked || !isPlain(number)) {
+      this.load();
+      super.add(number);
+      this.park();
+      return;
+    }
+    this.text = null; // value changes
+    int length = Math.max(this.size, number.size);
+    this.reserve(length + 1);
+    int[] x = ScratchArena.borrow(BAND);
+    int[] y = ScratchArena.borrow(BAND);
+    int carry = 0;
+    for (int from = 0; from < length && (from < number.size || carry != 0);
+        from += BAND) {
+      int count = Math.min(BAND, length - from);
+      this.limbs(from, count, x);
+      limbs(number, from, count, y);
+      carry = LimbKernels.KERNELS.add(x, 0, y, 0, count, carry);
+      this.put(from, count, x);
+    }
+    if (carry != 0) this.storage.putInt(Integer.BYTES * length, carry);
+    this.size = length + carry;
+    ScratchArena.release(x);
+    ScratchArena.release(y);
+  }
+
+  private synchronized void subtractLocked(BigNum number) {
+    if (!this.parked || !isPlain(number)) {
+      this.load();
+      super.subtract(number);
+      this.park();
+      return;
+    }
+    this.text = null; // value changes
+    if (this.compare(number) <= 0) { // underflow gives zero
+      this.setZero();
+      this.freeStorage();
+      return;
+    }
+    int[] x = ScratchArena.borrow(BAND);
+    int[] y = ScratchArena.borrow(BAND);
+    int borrow = 0;
+    for (int from = 0; from < number.size || borrow != 0; from += BAND) {
+      int count = Math.min(BAND, this.size - from); // this > number
+      this.limbs(from, count, x);
+      limbs(number, from, count, y);
+      borrow = LimbKernels.KERNELS.subtract(x, 0, y, 0, count, borrow);
+      this.put(from, count, x);
+    }
+    ScratchArena.release(x);
+    ScratchArena.release(y);
+    while (this.storage.getInt(Integer.BYTES * (this.size - 1)) == 0) {
+      this.size --; // the difference is positive
+    }
+    if (this.size < this.threshold) this.unpark();
+  }
+
+  private synchronized void multiplyLocked(BigNum number) {
+    if (!isPlain(this) || !isPlain(number) || this.size == 1
+        || number.size == 1
+        || (!this.parked && this.size + number.size < this.threshold)) {
+      this.load();
+      super.multiply(number);
+      this.park();
+      return;
+    }
+    this.text = null; // value changes
+    int[] x = this.parked ? this.limbs() : this.data;
+    int length = this.size + number.size;
+    int[] product = ScratchArena.borrow(length);
+    Arrays.fill(product, 0, length, 0); // borrowed arrays are not cleared
+    multiply(x, this.size, number.data, number.size, product);
+    if (this.parked) ScratchArena.release(x);
+    this.store(product, trimmed(product, length));
+    ScratchArena.release(product);
+  }
+
+  private synchronized BigNum divideLocked(BigNum number,
+      BigNum remainder) {
+    if (!this.parked || !isPlain(number) || number.size == 1) {
+      this.load();
+      remainder = super.divide(number, remainder);
+      this.park();
+      return remainder;
+    }
+    remainder.radix = this.radix;
+    remainder.setZero();
+    this.text = null; // value changes
+    int[] x = this.limbs();
+    int length = Math.max(1, this.size - number.size + 1);
+    int[] quotient = ScratchArena.borrow(length);
+    int[] rest = divide(x, this.size, number.data, number.size, quotient);
+    ScratchArena.release(x);
+    this.store(quotient, trimmed(quotient, length));
+    ScratchArena.release(quotient);
+    remainder.data = rest.length == 0 ? new int[1] : rest;
+    remainder.size = rest.length;
+    return remainder;
+  }
+
+  private synchronized void modPowLocked(BigNum exponent, BigNum modulus) {
+    this.load();
+    super.modPow(exponent, modulus);
+    this.park();
+  }
+
+  private synchronized int compareLocked(BigNum number) {
+    if (!this.parked) return super.compare(number);
+    if (number.size < 0) return -1; // infinity is the largest
+    if (this.size != number.size) return this.size > number.size ? 1 : -1;
+    int[] x = ScratchArena.borrow(BAND);
+    int[] y = ScratchArena.borrow(BAND);
+    int comparison = 0;
+    for (int to = this.size; comparison == 0 && to > 0; to -= BAND) {
+      int count = Math.min(BAND, to);
+      this.limbs(to - count, count, x);
+      limbs(number, to - count, count, y);
+      comparison = LimbKernels.KERNELS.compare(x, y, count);
+    }
+    ScratchArena.release(x);
+    ScratchArena.release(y);
+    return comparison;
+  }
+
+  private synchronized void multiplyInPoolLocked(BigNum number,
+      ForkJoinPool pool, int cutoff) {
+    this.load();
+    super.multiplyInPool(number, pool, cutoff);
+    this.park();
+  }
+
+  /* Buffer helpers */
+
+  // Check whether a number is finite and not zero (parked ones are)
+  private static boolean isPlain(BigNum number) {
+    return number.size > 0 && (number.data != null || number.isOffHeap());
+  }
+
+  // Limbs [from, from + count) of a number on the heap, zeroes above its
+  // size
+  private static void limbs(BigNum number, int from, int count, int[] z) {
+    int available = Math.max(0, Math.min(count, number.size - from));
+    if (available > 0) System.arraycopy(number.data, from, z, 0, available);
+    Arrays.fill(z, available, count, 0);
+  }
+
+  // Parked limbs [from, from + count), zeroes above the size
+  private void limbs(int from, int count, int[] z) {
+    int available = Math.max(0, Math.min(count, this.size - from));
+    IntBuffer limbs = this.storage.asIntBuffer();
+    ((Buffer) limbs).position(from);
+    limbs.get(z, 0, available);
+    Arrays.fill(z, available, count, 0);
+  }
+
+  // Store limbs [from, from + count) in the buffer
+  private void put(int from, int count, int[] x) {
+    IntBuffer limbs = this.storage.asIntBuffer();
+    ((Buffer) limbs).position(from);
+    limbs.put(x, 0, count);
+  }
+
+  // Take the value of limbs (length without leading zeroes), large values
+  // are parked
+  private void store(int[] limbs, int length) {
+    this.size = length;
+    this.parked = false; // the buffer holds nothing to keep
+    if (length < this.threshold) {
+      this.data = Arrays.copyOf(limbs, Math.max(length, 1));
+      this.freeStorage();
+      return;
+    }
+    this.data = null;
+    this.reserve(length);
+    this.storage.asIntBuffer().put(limbs, 0, length);
+    this.parked = true;
+  }
+
+  // Make room for the given number of limbs in the buffer, parked limbs are
+  // kept (the buffer grows by half at least)
+  private void reserve(int limbs) {
+    int bytes = Integer.BYTES * limbs;
+    if (this.storage != null && this.storage.capacity() >= bytes) return;
+    int capacity = this.storage == null ? bytes : (int) Math.min(
+        Integer.MAX_VALUE, Math.max(bytes, this.storage.capacity()
+        + ((long) this.storage.capacity() >> 1)));
+    ByteBuffer storage = ByteBuffer.allocateDirect(capacity)
+        .order(ByteOrder.LITTLE_ENDIAN);
+    if (this.parked) {
+      ByteBuffer old = this.storage.duplicate();
+      ((Buffer) old).limit(Integer.BYTES * this.size);
+      storage.put(old);
+      ((Buffer) storage).clear();
+    }
+    this.freeStorage();
+    this.storage = storage;
+  }
+
+  // Bring a value that became small back to the heap, free the buffer
+  private void unpark() {
+    int[] limbs = new int[Math.max(this.size, 1)];
+    this.storage.asIntBuffer().get(limbs, 0, this.size);
+    this.data = limbs;
+    this.parked = false;
+    this.freeStorage();
+  }
+
+  // Heap copy of a parked value, its limbs go back to the arena
+  private static final class HeapCopy extends BigNum {
+    HeapCopy(int[] data, int size, byte radix) {
+      super(data, size, radix);
+    }
+
+    @Override
+    protected void releaseLimbs() {
+      ScratchArena.release(this.data);
+      this.data = null;
+      this.size = 0;
+    }
+  }
+
+  /* Overrided methods */
+
+  // String representation (digits of parked values are not cached)
+  @Override
+  public synchronized String toString(byte radix) {
+    BigNum copy = this.onHeap();
+    if (copy == this) return super.toString(radix);
+    String digits = copy.toString(radix);
+    copy.releaseLimbs();
+    return digits;
+  }
+}
+
+/* vim: set si et ts=2 sw=2: */
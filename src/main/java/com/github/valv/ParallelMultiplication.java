@@ -0,0 +1,133 @@
+/*
+ * @(#)ParallelMultiplication.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+package com.github.valv;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * ParallelMultiplication class multiplies limb arrays as fork/join tasks.
+ * Unbalanced operands are cut into slices which are multiplied at once,
+ * balanced operands are split by Karatsuba's formula into three products
+ * computed in parallel, and NTT sized operands convolve modulo every prime
+ * and run butterflies of every stage in parallel. Operands below
+ * the cutoff (in limbs) are multiplied sequentially.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+final class ParallelMultiplication extends RecursiveAction {
+  private static final long serialVersionUID = 1L;
+
+  private final int[] x, y, z;
+  private final int xLen, yLen, cutoff;
+
+  // z = x * y, z has xLen + yLen limbs
+  ParallelMultiplication(int[] x, int xLen, int[] y, int yLen, int[] z,
+      int cutoff) {
+    this.x = x;
+    this.xLen = xLen;
+    this.y = y;
+    this.yLen = yLen;
+    this.z = z;
+    this.cutoff = Math.max(cutoff, BigNum.KARATSUBA_THRESHOLD);
+  }
+
+  @Override
+  protected void compute() {
+    if (this.xLen < this.yLen) { // keep the longest operand first
+      new ParallelMultiplication(this.y, this.yLen, this.x, this.xLen,
+          this.z, this.cutoff).compute();
+    } else if (this.yLen < this.cutoff) {
+      BigNum.multiply(this.x, this.xLen, this.y, this.yLen, this.z);
+    } else if (this.yLen <= (this.xLen + 1) / 2) {
+      this.multiplyUnbalanced();
+    } else if (this.yLen >= BigNum.NTT_THRESHOLD
+        && NumberTheoreticTransform.fits(this.xLen + this.yLen)) {
+      NumberTheoreticTransform.multiply(this.x, this.xLen, this.y,
+          this.yLen, this.z, true);
+    } else {
+      this.multiplyKaratsuba();
+    }
+  }
+
+  // Slices of x times y at once, then sum products up
+  private void multiplyUnbalanced() {
+    List<ParallelMultiplication> tasks = new ArrayList<>();
+    List<Integer> offsets = new ArrayList<>();
+    for (int offset = 0; offset < this.xLen; offset += this.yLen) {
+      int sliceLen = Math.min(this.yLen, this.xLen - offset);
+      int[] slice = Arrays.copyOfRange(this.x, offset, offset + sliceLen);
+      sliceLen = BigNum.trimmed(slice, sliceLen);
+      if (sliceLen == 0) continue; // zero slice
+      tasks.add(new ParallelMultiplication(slice, sliceLen, this.y,
+          this.yLen, new int[sliceLen + this.yLen], this.cutoff));
+      offsets.add(offset);
+    }
+    invokeAll(tasks);
+    Arrays.fill(this.z, 0, this.xLen + this.yLen, 0);
+    for (int index = 0; index < tasks.size(); index ++) {
+      ParallelMultiplication task = tasks.get(index);
+      BigNum.addInto(this.z, offsets.get(index), task.z,
+          BigNum.trimmed(task.z, task.z.length));
+    }
+  }
+
+  // Karatsuba's three products at once (see BigNum.multiplyKaratsuba)
+  private void multiplyKaratsuba() {
+    int half = (this.xLen + 1) / 2;
+    int[] x0 = Arrays.copyOf(this.x, half);
+    int[] y0 = Arrays.copyOf(this.y, half);
+    int[] x1 = Arrays.copyOfRange(this.x, half, this.xLen);
+    int[] y1 = Arrays.copyOfRange(this.y, half, this.yLen);
+    int x0Len = BigNum.trimmed(x0, half), y0Len = BigNum.trimmed(y0, half);
+    int[] sx = BigNum.add(x0, x0Len, x1, x1.length);
+    int[] sy = BigNum.add(y0, y0Len, y1, y1.length);
+    int sxLen = BigNum.trimmed(sx, sx.length);
+    int syLen = BigNum.trimmed(sy, sy.length);
+    int[] z0 = new int[x0Len + y0Len];
+    int[] z1 = new int[sxLen + syLen];
+    int[] z2 = new int[x1.length + y1.length];
+    List<ParallelMultiplication> tasks = new ArrayList<>();
+    if (x0Len > 0 && y0Len > 0) {
+      tasks.add(new ParallelMultiplication(x0, x0Len, y0, y0Len, z0,
+          this.cutoff));
+    }
+    tasks.add(new ParallelMultiplication(sx, sxLen, sy, syLen, z1,
+        this.cutoff));
+    tasks.add(new ParallelMultiplication(x1, x1.length, y1, y1.length, z2,
+        this.cutoff));
+    invokeAll(tasks);
+    Arrays.fill(this.z, 0, this.xLen + this.yLen, 0);
+    System.arraycopy(z0, 0, this.z, 0, z0.length);
+    System.arraycopy(z2, 0, this.z, 2 * half, z2.length);
+    BigNum.subtractFrom(z1, z1.length, z0, BigNum.trimmed(z0, z0.length));
+    BigNum.subtractFrom(z1, z1.length, z2, BigNum.trimmed(z2, z2.length));
+    BigNum.addInto(this.z, half, z1, BigNum.trimmed(z1, z1.length));
+  }
+}
+
+/* vim: set si et ts=2 sw=2: */
@@ -0,0 +1,123 @@
+/*
+ * @(#)ProductTree.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+package com.github.valv;
+
+import java.util.Arrays;
+
+/**
+ * ProductTree class multiplies many numbers by a balanced binary tree,
+ * so both operands of every multiplication have similar sizes and fast
+ * algorithms (Karatsuba, Toom-Cook, NTT) pay off, instead of feeding
+ * a huge accumulator with small factors one by one. Factorial is computed
+ * with the prime swing algorithm (P. Luschny): n! = ((n/2)!)^2 * swing(n),
+ * where swing(n) is a product of prime powers, each not larger than n.
+ * Values are limb arrays without leading zeroes.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+final class ProductTree {
+  // Argument of factorial where prime swing takes over the plain product
+  static final int SWING_THRESHOLD = 64;
+
+  static final int[] ONE = {1};
+
+  private ProductTree() {
+  }
+
+  // Product of factors [from, to) by a balanced tree
+  static int[] product(int[][] factors, int from, int to) {
+    if (to - from == 0) return ONE;
+    if (to - from == 1) return factors[from];
+    int middle = (from + to) >>> 1;
+    return multiply(product(factors, from, middle),
+        product(factors, middle, to));
+  }
+
+  // Product of the first count positive words, packed into limbs first
+  static int[] product(int[] words, int count) {
+    int[][] factors = new int[count][];
+    int limbs = 0;
+    long limb = 1;
+    for (int index = 0; index < count; index ++) {
+      long word = words[index] & BigNum.LIMB_MASK;
+      if (limb * word > BigNum.LIMB_MASK) { // limb is full
+        factors[limbs ++] = new int[] {(int) limb};
+        limb = 1;
+      }
+      limb *= word;
+    }
+    factors[limbs ++] = new int[] {(int) limb};
+    return product(factors, 0, limbs);
+  }
+
+  // n! for n >= 0
+  static int[] factorial(int n) {
+    boolean[] composite = new boolean[n + 1]; // sieve of Eratosthenes
+    for (int p = 2; (long) p * p <= n; p ++) {
+      if (composite[p]) continue;
+      for (int multiple = p * p; multiple <= n; multiple += p) {
+        composite[multiple] = true;
+      }
+    }
+    return factorial(n, composite);
+  }
+
+  static int[] factorial(int n, boolean[] composite) {
+    if (n < SWING_THRESHOLD) {
+      int[] words = new int[Math.max(n, 1)]; // 0! = 1! = 1
+      for (int index = 0; index < words.length; index ++) {
+        words[index] = index + 1;
+      }
+      return product(words, words.length);
+    }
+    int[] half = factorial(n / 2, composite);
+    return multiply(multiply(half, half), swing(n, composite));
+  }
+
+  // swing(n) = n! / ((n/2)!)^2 as a product of prime powers: exponent of
+  // a prime p is the number of odd values among n / p^k, k = 1, 2, ...
+  static int[] swing(int n, boolean[] composite) {
+    int[] factors = new int[n];
+    int count = 0;
+    for (int p = 2; p <= n; p ++) {
+      if (composite[p]) continue;
+      int factor = 1;
+      for (int q = n / p; q > 0; q /= p) {
+        if ((q & 1) != 0) factor *= p;
+      }
+      if (factor > 1) factors[count ++] = factor;
+    }
+    return count == 0 ? ONE : product(factors, count);
+  }
+
+  static int[] multiply(int[] x, int[] y) {
+    int[] z = new int[x.length + y.length];
+    BigNum.multiply(x, x.length, y, y.length, z);
+    int zLen = BigNum.trimmed(z, z.length);
+    return zLen == z.length ? z : Arrays.copyOf(z, zLen);
+  }
+}
+
+/* vim: set si et ts=2 sw=2: */
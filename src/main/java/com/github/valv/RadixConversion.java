@@ -0,0 +1,295 @@
+/*
+ * @(#)RadixConversion.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+package com.github.valv;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * RadixConversion class converts limb arrays to and from digits of a radix.
+ * Long numbers are split in halves by powers radix^(c * 2^k), where c is
+ * the number of digits in a word chunk, so conversion costs about
+ * a multiplication (or a division) of the whole number times log n.
+ * Powers are cached per radix and reused across calls. Power of two radices
+ * are converted directly by bits in linear time.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+final class RadixConversion {
+  // Size (in limbs) where conversion switches to quadratic word chunks
+  static final int THRESHOLD = 40;
+
+  // Cached powers radix^(c * 2^k) by radix and level k, arrays of levels
+  // are published complete and never change, so readers do not lock
+  private static final AtomicReferenceArray<int[][]> POWERS =
+      new AtomicReferenceArray<int[][]>(BigNum.RADIX_MAX + 1);
+
+  // Digit values of ASCII characters (-1 for characters that are not digits)
+  static final byte[] DIGIT_VALUES = new byte[128];
+
+  static {
+    Arrays.fill(DIGIT_VALUES, (byte) -1);
+    for (int digit = 0; digit < BigNum.RADIX_SYMBOL.length(); digit ++) {
+      char symbol = BigNum.RADIX_SYMBOL.charAt(digit);
+      DIGIT_VALUES[symbol] = (byte) digit;
+      DIGIT_VALUES[Character.toUpperCase(symbol)] = (byte) digit;
+    }
+  }
+
+  private RadixConversion() {
+  }
+
+  // radix^(c * 2^level) as limbs without leading zeroes
+  static int[] power(int radix, int level) {
+    int[][] powers = POWERS.get(radix);
+    if (powers != null && level < powers.length) return powers[level];
+    return extend(radix, level);
+  }
+
+  // Compute missing levels (under the lock, so every level is squared once)
+  private static synchronized int[] extend(int radix, int level) {
+    int[][] powers = POWERS.get(radix);
+    if (powers == null) {
+      powers = new int[][] {{BigNum.CHUNK_POWER[radix]}};
+    }
+    if (level >= powers.length) {
+      int known = powers.length;
+      powers = Arrays.copyOf(powers, level + 1);
+      for (int index = known; index <= level; index ++) {
+        int[] root = powers[index - 1];
+        int[] square = new int[2 * root.length];
+        BigNum.multiply(root, root.length, root, root.length, square);
+        powers[index] = Arrays.copyOf(square,
+            BigNum.trimmed(square, square.length));
+      }
+    }
+    POWERS.set(radix, powers);
+    return powers[level];
+  }
+
+  // radix^digits from cached powers: radix^(c * q + r) is the product of
+  // powers of the levels set in q and a word radix^r
+  static int[] digitPower(int radix, int digits) {
+    int word = 1;
+    for (int index = digits % BigNum.CHUNK_DIGITS[radix]; index > 0;
+        index --) {
+      word *= radix;
+    }
+    int[] result = {word};
+    int chunks = digits / BigNum.CHUNK_DIGITS[radix];
+    for (int level = 0; chunks != 0; level ++, chunks >>>= 1) {
+      if ((chunks & 1) != 0) {
+        result = BurnikelZiegler.multiply(result, power(radix, level));
+      }
+    }
+    return result;
+  }
+
+  /* Parsing */
+
+  // Digit values of a string (characters out of the radix are skipped)
+  static byte[] digits(String number, int radix) {
+    byte[] digits = new byte[number.length()];
+    int count = 0;
+    for (int position = 0; position < number.length(); position ++) {
+      char symbol = number.charAt(position);
+      int digit = symbol < DIGIT_VALUES.length ? DIGIT_VALUES[symbol] : -1;
+      if (digit < 0 || digit >= radix) continue; // skip garbage
+      digits[count ++] = (byte) digit;
+    }
+    return Arrays.copyOf(digits, count);
+  }
+
+  // Limbs of digit values [from, to), most significant digit first
+  static int[] parse(byte[] digits, int from, int to, int radix) {
+    int radixBits = Integer.numberOfTrailingZeros(radix);
+    if ((1 << radixBits) == radix) {
+      return parseBits(digits, from, to, radixBits);
+    }
+    int chunkDigits = BigNum.CHUNK_DIGITS[radix];
+    if (to - from <= chunkDigits * THRESHOLD) {
+      return parseChunks(digits, from, to, radix);
+    }
+    // Lower part takes c * 2^level digits, the upper part is not longer
+    int level = 0;
+    while ((long) chunkDigits << (level + 1) < to - from) level ++;
+    int split = to - (chunkDigits << level);
+    int[] upper = parse(digits, from, split, radix);
+    int[] lower = parse(digits, split, to, radix);
+    int[] power = power(radix, level);
+    int zLen = upper.length + power.length + 1;
+    int[] z = ScratchArena.borrow(zLen);
+    if (upper.length > 0) {
+      BigNum.multiply(upper, upper.length, power, power.length, z);
+      z[zLen - 1] = 0;
+    } else {
+      Arrays.fill(z, 0, zLen, 0);
+    }
+    BigNum.addInto(z, 0, lower, lower.length);
+    int[] value = Arrays.copyOf(z, BigNum.trimmed(z, zLen));
+    ScratchArena.release(z);
+    return value;
+  }
+
+  // Quadratic parsing: shift in chunks of digits word by word
+  static int[] parseChunks(byte[] digits, int from, int to, int radix) {
+    int[] z = ScratchArena.borrow(BigNum.limbsForDigits(to - from,
+        (byte) radix));
+    int size = 0, chunk = 0, count = 0;
+    for (int position = from; position < to; position ++) {
+      chunk = chunk * radix + digits[position];
+      if (++ count == BigNum.CHUNK_DIGITS[radix] || position == to - 1) {
+        int power = BigNum.CHUNK_POWER[radix];
+        if (count < BigNum.CHUNK_DIGITS[radix]) {
+          for (power = 1; count > 0; count --) power *= radix;
+        }
+        int carry = BigNum.multiplyAddWord(z, size, power, chunk);
+        if (carry != 0) z[size ++] = carry;
+        chunk = count = 0;
+      }
+    }
+    int[] value = Arrays.copyOf(z, BigNum.trimmed(z, size));
+    ScratchArena.release(z);
+    return value;
+  }
+
+  // Linear parsing of a power of two radix: put bits in place
+  static int[] parseBits(byte[] digits, int from, int to, int radixBits) {
+    int[] z = new int[(int) (((long) (to - from) * radixBits
+        + BigNum.LIMB_BITS - 1) / BigNum.LIMB_BITS) + 1];
+    long bit = 0;
+    for (int position = to - 1; position >= from; position --, bit
+        += radixBits) {
+      int index = (int) (bit / BigNum.LIMB_BITS);
+      int offset = (int) (bit % BigNum.LIMB_BITS);
+      z[index] |= digits[position] << offset;
+      if (offset + radixBits > BigNum.LIMB_BITS) { // spans two limbs
+        z[index + 1] |= digits[position] >>> (BigNum.LIMB_BITS - offset);
+      }
+    }
+    return Arrays.copyOf(z, BigNum.trimmed(z, z.length));
+  }
+
+  /* Printing */
+
+  // Digits of a positive limb array
+  static String format(int[] x, int xLen, int radix) {
+    int radixBits = Integer.numberOfTrailingZeros(radix);
+    if ((1 << radixBits) == radix) {
+      return formatBits(x, xLen, radixBits);
+    }
+    int bits = xLen * BigNum.LIMB_BITS
+        - Integer.numberOfLeadingZeros(x[xLen - 1]);
+    char[] output = new char[(int) (bits * Math.log(2) / Math.log(radix))
+        + BigNum.CHUNK_DIGITS[radix] + 2]; // room for a padded top chunk
+    int position = writeUnpadded(x, xLen, radix, output, output.length);
+    return new String(output, position, output.length - position);
+  }
+
+  // Write digits of x ending at the end position, return start position
+  static int writeUnpadded(int[] x, int xLen, int radix, char[] output,
+      int end) {
+    if (xLen < THRESHOLD) {
+      return writeChunks(x, xLen, radix, output, end);
+    }
+    // Split by the largest cached power of about half the size
+    int level = 0;
+    while (power(radix, level + 1).length <= (xLen + 1) / 2) level ++;
+    int[] power = power(radix, level);
+    int quotientLen = xLen - power.length + 1;
+    int[] quotient = ScratchArena.borrow(quotientLen);
+    int[] remainder = BigNum.divide(x, xLen, power, power.length, quotient);
+    int position = writePadded(remainder, remainder.length, radix, level,
+        output, end);
+    position = writeUnpadded(quotient, BigNum.trimmed(quotient, quotientLen),
+        radix, output, position);
+    ScratchArena.release(quotient);
+    return position;
+  }
+
+  // Write exactly c * 2^level digits of x < radix^(c * 2^level)
+  static int writePadded(int[] x, int xLen, int radix, int level,
+      char[] output, int end) {
+    int digits = BigNum.CHUNK_DIGITS[radix] << level;
+    if (xLen < THRESHOLD) {
+      int position = writeChunks(x, xLen, radix, output, end);
+      while (position > end - digits) output[-- position] = '0';
+      return position;
+    }
+    int[] power = power(radix, level - 1);
+    int quotientLen = Math.max(1, xLen - power.length + 1);
+    int[] quotient = ScratchArena.borrow(quotientLen);
+    int[] remainder = BigNum.divide(x, xLen, power, power.length, quotient);
+    writePadded(remainder, remainder.length, radix, level - 1, output, end);
+    writePadded(quotient, BigNum.trimmed(quotient, quotientLen), radix,
+        level - 1, output, end - digits / 2);
+    ScratchArena.release(quotient);
+    return end - digits;
+  }
+
+  // Quadratic printing: split value into chunks of digits by division
+  // with a word, return start position (no leading zeroes)
+  static int writeChunks(int[] x, int xLen, int radix, char[] output,
+      int end) {
+    int[] value = BigNum.borrowRange(x, 0, xLen);
+    int position = end;
+    while (xLen > 0) {
+      // Fill from the end of the buffer
+      int chunk = BigNum.divideWord(value, xLen, BigNum.CHUNK_POWER[radix]);
+      if (value[xLen - 1] == 0) xLen --;
+      for (int digit = 0; digit < BigNum.CHUNK_DIGITS[radix]; digit ++) {
+        output[-- position] = BigNum.RADIX_SYMBOL.charAt(chunk % radix);
+        chunk /= radix;
+      }
+    }
+    while (position < end && output[position] == '0') {
+      position ++; // skip leading zeroes
+    }
+    ScratchArena.release(value);
+    return position;
+  }
+
+  // Linear printing of a power of two radix: take bits in place
+  static String formatBits(int[] x, int xLen, int radixBits) {
+    long bits = (long) xLen * BigNum.LIMB_BITS
+        - Integer.numberOfLeadingZeros(x[xLen - 1]);
+    char[] output = new char[(int) ((bits + radixBits - 1) / radixBits)];
+    long bit = 0;
+    for (int position = output.length - 1; position >= 0; position --, bit
+        += radixBits) {
+      int index = (int) (bit / BigNum.LIMB_BITS);
+      int offset = (int) (bit % BigNum.LIMB_BITS);
+      long window = x[index] & BigNum.LIMB_MASK;
+      if (index + 1 < xLen) {
+        window |= (x[index + 1] & BigNum.LIMB_MASK) << BigNum.LIMB_BITS;
+      }
+      int digit = (int) (window >>> offset) & ((1 << radixBits) - 1);
+      output[position] = BigNum.RADIX_SYMBOL.charAt(digit);
+    }
+    return new String(output);
+  }
+}
+
+/* vim: set si et ts=2 sw=2: */
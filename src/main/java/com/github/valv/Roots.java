@@ -0,0 +1,144 @@
+/*
+ * @(#)Roots.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+package com.github.valv;
+
+import java.util.Arrays;
+
+/**
+ * Roots class computes integer roots floor(n^(1/k)) of limb arrays by
+ * Newton's iteration x = ((k - 1) * x + n / x^(k - 1)) / k with precision
+ * doubling: the root of the upper half of bits of n (shifted back) is
+ * a starting point correct in about half of the bits, so one iteration at
+ * full precision gives the root within a unit, and the whole root costs
+ * a small multiple of one division. Integer iterations never fall below
+ * the root, the final power check steps down to it and gives the remainder.
+ * Values are limb arrays without leading zeroes.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+final class Roots {
+  // Size (in bits) of numbers which roots are computed in a long
+  static final int LONG_BITS = 62;
+
+  private static final int[] ONE = {1}; // never returned, only read
+
+  private Roots() {
+  }
+
+  // floor(n^(1/k)) and n - floor(n^(1/k))^k for n > 0, k >= 2
+  static int[][] root(int[] n, int k) {
+    int bits = BurnikelZiegler.bitLength(n, n.length);
+    int[] x;
+    if (k >= bits) { // n < 2^k
+      x = new int[] {1};
+    } else if (bits <= LONG_BITS) {
+      x = fromLong(rootLong(toLong(n), k));
+    } else {
+      int rootBits = (bits + k - 1) / k; // root < 2^rootBits
+      // Newton's error is about (k - 1) / 2 * e^2 / x, so the starting error
+      // e < 2^half keeps one iteration within a unit of the root
+      int half = rootBits / 2 - 2 - (32 - Integer.numberOfLeadingZeros(k));
+      if (half < 1) { // short root, iterate from the power of two bound
+        x = BurnikelZiegler.shiftLeft(ONE, rootBits);
+        for (int[] y = newton(n, x, k);
+            BigNum.compare(y, y.length, x, x.length) < 0; y = newton(n, x, k)) {
+          x = y;
+        }
+      } else { // root of the upper bits shifted back, one iteration
+        int[] upper = root(BurnikelZiegler.shiftRight(n, k * half), k)[0];
+        x = newton(n, BurnikelZiegler.shiftLeft(upper, half), k);
+      }
+    }
+    // Iterations never fall below the root, step down to it
+    int[] power = power(x, k);
+    while (BigNum.compare(power, power.length, n, n.length) > 0) {
+      x = BurnikelZiegler.subtract(x, ONE);
+      power = power(x, k);
+    }
+    return new int[][] {x, BurnikelZiegler.subtract(n, power)};
+  }
+
+  // ((k - 1) * x + n / x^(k - 1)) / k
+  static int[] newton(int[] n, int[] x, int k) {
+    int[] power = power(x, k - 1);
+    int[] quotient = new int[Math.max(1, n.length - power.length + 1)];
+    if (BigNum.compare(n, n.length, power, power.length) >= 0) {
+      BigNum.divide(n, n.length, power, power.length, quotient);
+    }
+    int[] y = Arrays.copyOf(x, x.length + 1);
+    y[x.length] = BigNum.multiplyAddWord(y, x.length, k - 1, 0);
+    y = BurnikelZiegler.add(y, BurnikelZiegler.value(quotient, 0,
+        quotient.length));
+    BigNum.divideWord(y, y.length, k);
+    return BurnikelZiegler.value(y, 0, y.length);
+  }
+
+  // x^e for e >= 1 (binary powering, squares go to the squaring path)
+  static int[] power(int[] x, int e) {
+    int[] result = x;
+    for (int bit = 30 - Integer.numberOfLeadingZeros(e); bit >= 0; bit --) {
+      result = BurnikelZiegler.multiply(result, result);
+      if ((e & (1 << bit)) != 0) {
+        result = BurnikelZiegler.multiply(result, x);
+      }
+    }
+    return result;
+  }
+
+  /* Word sized roots */
+
+  static long rootLong(long n, int k) {
+    long root = k == 2 ? (long) Math.sqrt(n)
+        : (long) Math.pow(n, 1.0 / k);
+    while (root > 0 && exceeds(root, k, n)) root --;
+    while (!exceeds(root + 1, k, n)) root ++;
+    return root;
+  }
+
+  // Check whether x^k > n (without overflow)
+  static boolean exceeds(long x, int k, long n) {
+    long power = 1;
+    for (int index = 0; index < k; index ++) {
+      if (power > n / x) return true;
+      power *= x;
+    }
+    return power > n;
+  }
+
+  static long toLong(int[] x) {
+    long value = 0;
+    for (int index = x.length - 1; index >= 0; index --) {
+      value = (value << BigNum.LIMB_BITS) | (x[index] & BigNum.LIMB_MASK);
+    }
+    return value;
+  }
+
+  static int[] fromLong(long x) {
+    int[] z = {(int) x, (int) (x >>> BigNum.LIMB_BITS)};
+    return BurnikelZiegler.value(z, 0, z.length);
+  }
+}
+
+/* vim: set si et ts=2 sw=2: */
@@ -0,0 +1,219 @@
+/*
+ * @(#)ScratchArena.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+
+package com.github.valv;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ScratchArena class lends limb arrays for temporaries of multiplication,
+ * division and radix conversion. Arrays are pooled by power of two size
+ * classes in a shared pool of lock free slots (up to a byte limit), so
+ * arrays given back by one thread are reused by any other, short lived and
+ * virtual threads included, and no thread ever blocks (or pins its carrier)
+ * on the arena. Platform threads also keep a couple of small arrays of each
+ * class (at most 16 KB) to skip the shared slots for short temporaries,
+ * virtual threads do not. Borrowed arrays have unspecified contents and are
+ * at least as long as asked. Statistics show the reuse rate and the peak
+ * footprint: bytes of arrays that are idle in the shared pool (arrays which
+ * are lent out or kept by threads are not counted, so arrays of dead
+ * threads never skew it).
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+public final class ScratchArena {
+  static final String SCRATCH_PROPERTY = "com.github.valv.scratch";
+  static final boolean ENABLED =
+      Boolean.parseBoolean(System.getProperty(SCRATCH_PROPERTY, "true"));
+
+  // Size classes (log2 of limbs), shorter arrays are not pooled
+  static final int MIN_CLASS = 6;
+  static final int MAX_CLASS = 26;
+
+  // Shared slots per class and idle bytes of the shared pool
+  static final int SHARED_SLOTS = 8;
+  static final long SHARED_BYTES = 1L << 28;
+
+  // Largest class and idle arrays per class kept by a platform thread
+  static final int LOCAL_CLASS = 10;
+  static final int LOCAL_DEPTH = 2;
+
+  private static final AtomicReferenceArray<int[]> SHARED =
+      new AtomicReferenceArray<>((MAX_CLASS + 1) * SHARED_SLOTS);
+  private static final ThreadLocal<ScratchArena> ARENAS =
+      ThreadLocal.withInitial(ScratchArena::new);
+
+  // Thread.isVirtual() of JDK 21 and higher (null before)
+  private static final MethodHandle IS_VIRTUAL = isVirtualHandle();
+
+  private static final LongAdder BORROWS = new LongAdder();
+  private static final LongAdder REUSES = new LongAdder();
+  private static final AtomicLong FOOTPRINT = new AtomicLong();
+  private static final LongAccumulator PEAK =
+      new LongAccumulator(Math::max, 0);
+
+  private final int[][][] idle = new int[LOCAL_CLASS + 1][LOCAL_DEPTH][];
+  private final int[] counts = new int[LOCAL_CLASS + 1];
+
+  private ScratchArena() {
+  }
+
+  /* Statistics */
+
+  // Arrays borrowed from the arenas
+  public static long borrows() {
+    return BORROWS.sum();
+  }
+
+  // Borrowed arrays that were idle (not allocated)
+  public static long reuses() {
+    return REUSES.sum();
+  }
+
+  // Share of borrowed arrays that were reused (0 before any borrow)
+  public static double reuseRate() {
+    long borrows = BORROWS.sum();
+    return borrows == 0 ? 0 : (double) REUSES.sum() / borrows;
+  }
+
+  // Bytes of arrays idle in the shared pool
+  public static long footprint() {
+    return FOOTPRINT.get();
+  }
+
+  // The largest footprint since start (or the last reset)
+  public static long peakFootprint() {
+    return PEAK.get();
+  }
+
+  // Reset counters, the peak starts from the current footprint
+  public static void resetStats() {
+    BORROWS.reset();
+    REUSES.reset();
+    PEAK.reset();
+    PEAK.accumulate(FOOTPRINT.get());
+  }
+
+  /* Arrays */
+
+  // Array of at least the given number of limbs (contents are unspecified)
+  static int[] borrow(int limbs) {
+    int sizeClass = sizeClass(limbs);
+    if (!ENABLED || sizeClass < MIN_CLASS || sizeClass > MAX_CLASS) {
+      return new int[limbs];
+    }
+    BORROWS.increment();
+    int[] array = sizeClass <= LOCAL_CLASS && !isVirtual()
+        ? ARENAS.get().take(sizeClass) : null;
+    for (int slot = 0; array == null && slot < SHARED_SLOTS; slot ++) {
+      int index = sizeClass * SHARED_SLOTS + slot;
+      if (SHARED.get(index) != null) {
+        array = SHARED.getAndSet(index, null);
+        if (array != null) FOOTPRINT.addAndGet(-bytes(sizeClass));
+      }
+    }
+    if (array == null) return new int[1 << sizeClass];
+    REUSES.increment();
+    return array;
+  }
+
+  // Give a borrowed array back, it must not be used after
+  static void release(int[] array) {
+    int sizeClass = Integer.numberOfTrailingZeros(array.length);
+    if (!ENABLED || array.length != 1 << sizeClass || sizeClass < MIN_CLASS
+        || sizeClass > MAX_CLASS) {
+      return;
+    }
+    if (sizeClass <= LOCAL_CLASS && !isVirtual()
+        && ARENAS.get().keep(array, sizeClass)) {
+      return;
+    }
+    long bytes = bytes(sizeClass);
+    long footprint = FOOTPRINT.addAndGet(bytes); // reserve room in the pool
+    if (footprint <= SHARED_BYTES) {
+      for (int slot = 0; slot < SHARED_SLOTS; slot ++) {
+        if (SHARED.compareAndSet(sizeClass * SHARED_SLOTS + slot, null,
+            array)) {
+          PEAK.accumulate(footprint);
+          return;
+        }
+      }
+    }
+    FOOTPRINT.addAndGet(-bytes); // left to the collector
+  }
+
+  // Log2 of limbs rounded up
+  static int sizeClass(int limbs) {
+    return limbs <= 1 ? 0 : Integer.SIZE - Integer.numberOfLeadingZeros(
+        limbs - 1);
+  }
+
+  static long bytes(int sizeClass) {
+    return (long) Integer.BYTES << sizeClass;
+  }
+
+  // Whether the current thread is virtual (its thread locals would die
+  // with it, so it works with the shared pool only)
+  static boolean isVirtual() {
+    if (IS_VIRTUAL == null) return false;
+    try {
+      return (boolean) IS_VIRTUAL.invokeExact(Thread.currentThread());
+    } catch (Throwable e) {
+      return false;
+    }
+  }
+
+  private static MethodHandle isVirtualHandle() {
+    try {
+      return MethodHandles.publicLookup().findVirtual(Thread.class,
+          "isVirtual", MethodType.methodType(boolean.class));
+    } catch (ReflectiveOperationException e) {
+      return null; // no virtual threads
+    }
+  }
+
+  /* Thread arena */
+
+  private int[] take(int sizeClass) {
+    if (this.counts[sizeClass] == 0) return null;
+    int[] array = this.idle[sizeClass][-- this.counts[sizeClass]];
+    this.idle[sizeClass][this.counts[sizeClass]] = null;
+    return array;
+  }
+
+  private boolean keep(int[] array, int sizeClass) {
+    if (this.counts[sizeClass] == LOCAL_DEPTH) return false;
+    this.idle[sizeClass][this.counts[sizeClass] ++] = array;
+    return true;
+  }
+}
+
+/* vim: set si et ts=2 sw=2: */
@@ -0,0 +1,199 @@
+/*
+ * @(#)StreamFormatter.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+package com.github.valv;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * StreamFormatter class writes digits of limb arrays to appendables and
+ * byte channels chunk by chunk, so the number never exists as a string.
+ * Digits are produced most significant first: the number is split by
+ * cached powers of the radix like in the string conversion, the quotient
+ * is written before the remainder, and small pieces are converted into
+ * a short buffer which is flushed to the sink when full. Only limbs of
+ * pieces on the recursion path and one buffer are kept in memory.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+final class StreamFormatter {
+  // Characters written to the sink at once
+  static final int BUFFER_SIZE = 1 << 13;
+
+  private final int radix;
+  private final Appendable appendable; // one of the sinks is used
+  private final WritableByteChannel channel;
+  private final char[] buffer = new char[BUFFER_SIZE];
+  private final ByteBuffer bytes; // ASCII of the buffer for channels
+  private final char[] piece; // digits of a piece below the threshold
+  private int count = 0; // characters in the buffer
+
+  StreamFormatter(int radix, Appendable appendable,
+      WritableByteChannel channel) {
+    this.radix = radix;
+    this.appendable = appendable;
+    this.channel = channel;
+    this.bytes = channel != null ? ByteBuffer.allocate(BUFFER_SIZE) : null;
+    this.piece = new char[RadixConversion.THRESHOLD * BigNum.LIMB_BITS
+        + BigNum.CHUNK_DIGITS[radix] + 2];
+  }
+
+  /* Sinks */
+
+  // Write digits of a positive limb array to an appendable
+  static void write(int[] x, int xLen, int radix, Appendable appendable)
+      throws IOException {
+    new StreamFormatter(radix, appendable, null).write(x, xLen);
+  }
+
+  // Write ASCII digits of a positive limb array to a channel
+  static void write(int[] x, int xLen, int radix,
+      WritableByteChannel channel) throws IOException {
+    new StreamFormatter(radix, null, channel).write(x, xLen);
+  }
+
+  // Write characters of a string (special values and cached digits)
+  static void write(CharSequence text, Appendable appendable,
+      WritableByteChannel channel) throws IOException {
+    StreamFormatter formatter = new StreamFormatter(BigNum.RADIX_MIN,
+        appendable, channel);
+    for (int index = 0; index < text.length(); index ++) {
+      formatter.emit(text.charAt(index));
+    }
+    formatter.flush();
+  }
+
+  /* Digits */
+
+  void write(int[] x, int xLen) throws IOException {
+    int radixBits = Integer.numberOfTrailingZeros(this.radix);
+    if ((1 << radixBits) == this.radix) {
+      this.writeBits(x, xLen, radixBits);
+    } else {
+      this.writeUnpadded(x, xLen);
+    }
+    this.flush();
+  }
+
+  // Digits of x without leading zeroes, the quotient by about a half size
+  // power goes first
+  void writeUnpadded(int[] x, int xLen) throws IOException {
+    if (xLen < RadixConversion.THRESHOLD) {
+      int position = RadixConversion.writeChunks(x, xLen, this.radix,
+          this.piece, this.piece.length);
+      this.emit(this.piece, position, this.piece.length);
+      return;
+    }
+    int level = 0;
+    while (RadixConversion.power(this.radix, level + 1).length
+        <= (xLen + 1) / 2) {
+      level ++;
+    }
+    int[] power = RadixConversion.power(this.radix, level);
+    int quotientLen = xLen - power.length + 1;
+    int[] quotient = ScratchArena.borrow(quotientLen);
+    int[] remainder = BigNum.divide(x, xLen, power, power.length, quotient);
+    this.writeUnpadded(quotient, BigNum.trimmed(quotient, quotientLen));
+    ScratchArena.release(quotient);
+    this.writePadded(remainder, remainder.length, level);
+  }
+
+  // Exactly c * 2^level digits of x < radix^(c * 2^level)
+  void writePadded(int[] x, int xLen, int level) throws IOException {
+    long digits = (long) BigNum.CHUNK_DIGITS[this.radix] << level;
+    if (xLen < RadixConversion.THRESHOLD) {
+      int position = RadixConversion.writeChunks(x, xLen, this.radix,
+          this.piece, this.piece.length);
+      for (long zeroes = digits - (this.piece.length - position);
+          zeroes > 0; zeroes --) {
+        this.emit('0');
+      }
+      this.emit(this.piece, position, this.piece.length);
+      return;
+    }
+    int[] power = RadixConversion.power(this.radix, level - 1);
+    int quotientLen = Math.max(1, xLen - power.length + 1);
+    int[] quotient = ScratchArena.borrow(quotientLen);
+    int[] remainder = BigNum.divide(x, xLen, power, power.length, quotient);
+    this.writePadded(quotient, BigNum.trimmed(quotient, quotientLen),
+        level - 1);
+    ScratchArena.release(quotient);
+    this.writePadded(remainder, remainder.length, level - 1);
+  }
+
+  // Linear writing of a power of two radix: take bits from the top
+  void writeBits(int[] x, int xLen, int radixBits) throws IOException {
+    long bits = (long) xLen * BigNum.LIMB_BITS
+        - Integer.numberOfLeadingZeros(x[xLen - 1]);
+    for (long bit = (bits + radixBits - 1) / radixBits * radixBits
+        - radixBits; bit >= 0; bit -= radixBits) {
+      int index = (int) (bit / BigNum.LIMB_BITS);
+      int offset = (int) (bit % BigNum.LIMB_BITS);
+      long window = x[index] & BigNum.LIMB_MASK;
+      if (index + 1 < xLen) {
+        window |= (x[index + 1] & BigNum.LIMB_MASK) << BigNum.LIMB_BITS;
+      }
+      int digit = (int) (window >>> offset) & ((1 << radixBits) - 1);
+      this.emit(BigNum.RADIX_SYMBOL.charAt(digit));
+    }
+  }
+
+  /* Buffer */
+
+  void emit(char symbol) throws IOException {
+    if (this.count == this.buffer.length) this.flush();
+    this.buffer[this.count ++] = symbol;
+  }
+
+  void emit(char[] symbols, int from, int to) throws IOException {
+    while (from < to) {
+      if (this.count == this.buffer.length) this.flush();
+      int length = Math.min(to - from, this.buffer.length - this.count);
+      System.arraycopy(symbols, from, this.buffer, this.count, length);
+      this.count += length;
+      from += length;
+    }
+  }
+
+  // Pass buffered characters to the sink
+  void flush() throws IOException {
+    if (this.appendable != null) {
+      this.appendable.append(CharBuffer.wrap(this.buffer, 0, this.count));
+    } else {
+      ((Buffer) this.bytes).clear(); // Buffer methods link on Java 8 too
+      for (int index = 0; index < this.count; index ++) {
+        this.bytes.put((byte) this.buffer[index]);
+      }
+      ((Buffer) this.bytes).flip();
+      while (this.bytes.hasRemaining()) this.channel.write(this.bytes);
+    }
+    this.count = 0;
+  }
+}
+
+/* vim: set si et ts=2 sw=2: */
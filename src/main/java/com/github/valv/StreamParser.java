@@ -0,0 +1,189 @@
+/*
+ * @(#)StreamParser.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+package com.github.valv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * StreamParser class parses digits from readers, input streams and files
+ * chunk by chunk, so the number never exists as a string. Characters are
+ * mapped to digit values by a lookup table, digits are collected in blocks
+ * of a fixed length, and every parsed block is pushed onto a stack where
+ * equal blocks merge pairwise (like a binary counter) by a cached power of
+ * the radix, so parsing costs the same as the divide and conquer parsing
+ * of a string, while only limbs and one block of digits are kept in memory.
+ * Files are read through memory mapped regions. Characters that are not
+ * digits of the radix are skipped, the same as by the string constructor.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+final class StreamParser {
+  // Characters (or bytes) read at once and bytes of a mapped file region
+  static final int BUFFER_SIZE = 1 << 16;
+  static final long REGION_SIZE = 1L << 28;
+
+  // Level of cached powers: blocks take c * 2^level digits of a radix
+  static final int BLOCK_LEVEL = 5;
+
+  private final int radix;
+  private final int radixBits; // bits of a power of two radix, 0 otherwise
+  private final int blockDigits;
+  private final byte[] block; // digit values of the current block
+  private int count = 0; // digits in the current block
+  private int[][] values = new int[32][]; // merged blocks, upper first
+  private int[] levels = new int[32]; // value i has blockDigits << level
+  private int depth = 0;
+
+  StreamParser(int radix) {
+    this.radix = radix;
+    int bits = Integer.numberOfTrailingZeros(radix);
+    this.radixBits = (1 << bits) == radix ? bits : 0;
+    this.blockDigits = BigNum.CHUNK_DIGITS[radix] << BLOCK_LEVEL;
+    this.block = new byte[this.blockDigits];
+  }
+
+  /* Sources */
+
+  // Parse all characters of a reader, return null without digits
+  static int[] parse(Reader reader, int radix) throws IOException {
+    StreamParser parser = new StreamParser(radix);
+    char[] buffer = new char[BUFFER_SIZE];
+    for (int length; (length = reader.read(buffer)) >= 0;) {
+      parser.accept(buffer, length);
+    }
+    return parser.finish();
+  }
+
+  // Parse all bytes of a stream (ASCII digits), return null without digits
+  static int[] parse(InputStream stream, int radix) throws IOException {
+    StreamParser parser = new StreamParser(radix);
+    byte[] buffer = new byte[BUFFER_SIZE];
+    for (int length; (length = stream.read(buffer)) >= 0;) {
+      parser.accept(buffer, length);
+    }
+    return parser.finish();
+  }
+
+  // Parse bytes of a file from the channel position to its end through
+  // memory mapped regions, return null without digits
+  static int[] parse(FileChannel channel, int radix) throws IOException {
+    StreamParser parser = new StreamParser(radix);
+    byte[] buffer = new byte[BUFFER_SIZE];
+    long end = channel.size();
+    for (long position = channel.position(); position < end;
+        position += REGION_SIZE) {
+      MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY,
+          position, Math.min(REGION_SIZE, end - position));
+      while (region.hasRemaining()) {
+        int length = Math.min(buffer.length, region.remaining());
+        region.get(buffer, 0, length);
+        parser.accept(buffer, length);
+      }
+    }
+    channel.position(end);
+    return parser.finish();
+  }
+
+  /* Digits */
+
+  // Take digits of characters (characters out of the radix are skipped)
+  void accept(char[] buffer, int length) {
+    for (int index = 0; index < length; index ++) {
+      char symbol = buffer[index];
+      int digit = symbol < RadixConversion.DIGIT_VALUES.length
+          ? RadixConversion.DIGIT_VALUES[symbol] : -1;
+      if (digit < 0 || digit >= this.radix) continue; // skip garbage
+      this.block[this.count ++] = (byte) digit;
+      if (this.count == this.blockDigits) this.push();
+    }
+  }
+
+  // Take digits of bytes (bytes out of the radix are skipped)
+  void accept(byte[] buffer, int length) {
+    for (int index = 0; index < length; index ++) {
+      int symbol = buffer[index];
+      int digit = symbol >= 0 ? RadixConversion.DIGIT_VALUES[symbol] : -1;
+      if (digit < 0 || digit >= this.radix) continue; // skip garbage
+      this.block[this.count ++] = (byte) digit;
+      if (this.count == this.blockDigits) this.push();
+    }
+  }
+
+  // Parse the full block and merge it with equal blocks on the stack
+  void push() {
+    int[] value = RadixConversion.parse(this.block, 0, this.count, this.radix);
+    this.count = 0;
+    int level = 0;
+    while (this.depth > 0 && this.levels[this.depth - 1] == level) {
+      this.depth --;
+      value = this.merge(this.values[this.depth], value,
+          (long) this.blockDigits << level);
+      this.values[this.depth] = null;
+      level ++;
+    }
+    this.values[this.depth] = value;
+    this.levels[this.depth ++] = level;
+  }
+
+  // Fold the stack and the last partial block into limbs (null if there
+  // were no digits at all)
+  int[] finish() {
+    if (this.depth == 0 && this.count == 0) return null;
+    int[] value = RadixConversion.parse(this.block, 0, this.count, this.radix);
+    long digits = this.count;
+    while (this.depth > 0) {
+      this.depth --;
+      value = this.merge(this.values[this.depth], value, digits);
+      digits += (long) this.blockDigits << this.levels[this.depth];
+      this.values[this.depth] = null;
+    }
+    return value;
+  }
+
+  // upper * radix^digits + lower, lower has at most the given digits
+  int[] merge(int[] upper, int[] lower, long digits) {
+    if (upper.length == 0) return lower;
+    if (digits == 0) return upper; // lower is empty as well
+    int[] shifted;
+    long blocks = digits / this.blockDigits;
+    if (this.radixBits != 0) { // bits are put in place
+      shifted = BurnikelZiegler.shiftLeft(upper,
+          Math.toIntExact(digits * this.radixBits));
+    } else if (digits % this.blockDigits == 0 && Long.bitCount(blocks) == 1) {
+      shifted = BurnikelZiegler.multiply(upper, RadixConversion.power(
+          this.radix, BLOCK_LEVEL + Long.numberOfTrailingZeros(blocks)));
+    } else { // the last block is partial
+      shifted = BurnikelZiegler.multiply(upper, RadixConversion.digitPower(
+          this.radix, Math.toIntExact(digits)));
+    }
+    return BurnikelZiegler.add(shifted, lower);
+  }
+}
+
+/* vim: set si et ts=2 sw=2: */
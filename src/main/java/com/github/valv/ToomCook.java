@@ -0,0 +1,194 @@
+/*
+ * @(#)ToomCook.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+package com.github.valv;
+
+import java.util.Arrays;
+
+/**
+ * ToomCook class implements Toom-Cook multiplication of limb arrays.
+ * Operands are split into k parts (k = 3 or 4), treated as polynomials,
+ * evaluated at small points (0, 1, -1, 2, -2, 3 and infinity), multiplied
+ * pointwise and interpolated back with Newton divided differences.
+ * Intermediate values are kept as fixed width two's complement limbs.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+final class ToomCook {
+  static final int[] POINTS = {0, 1, -1, 2, -2, 3};
+
+  private ToomCook() {
+  }
+
+  // z = x * y, z has xLen + yLen limbs, x is the longest operand
+  static void multiply(int[] x, int xLen, int[] y, int yLen, int[] z,
+      int parts) {
+    int piece = (xLen + parts - 1) / parts;
+    int points = 2 * parts - 2; // finite points, the last one is infinity
+    int width = 2 * piece + 4; // room for sign and interpolation growth
+    // Evaluate and multiply pointwise
+    boolean square = x == y && xLen == yLen; // x * x, evaluate once
+    int[][] values = new int[points][];
+    for (int index = 0; index < points; index ++) {
+      int[] px = evaluate(x, xLen, piece, parts, POINTS[index]);
+      int[] py = square ? px : evaluate(y, yLen, piece, parts, POINTS[index]);
+      values[index] = product(px, py, width);
+    }
+    int[] top = slice(x, xLen, piece, parts - 1, piece + 2);
+    int[] infinity = product(top,
+        square ? top : slice(y, yLen, piece, parts - 1, piece + 2), width);
+    // Remove the leading term, so the rest is of degree points - 1
+    for (int index = 0; index < points; index ++) {
+      int[] term = Arrays.copyOf(infinity, width);
+      for (int power = 0; power < points; power ++) {
+        multiplySmall(term, POINTS[index]);
+      }
+      subtract(values[index], term);
+    }
+    // Newton divided differences
+    for (int level = 1; level < points; level ++) {
+      for (int index = points - 1; index >= level; index --) {
+        subtract(values[index], values[index - 1]);
+        divideSmall(values[index], POINTS[index] - POINTS[index - level]);
+      }
+    }
+    // Expand Newton form into coefficients of powers
+    int[][] coefficients = new int[points][];
+    for (int index = 0; index < points; index ++) {
+      coefficients[index] = new int[width];
+    }
+    System.arraycopy(values[points - 1], 0, coefficients[0], 0, width);
+    for (int index = points - 2; index >= 0; index --) {
+      int point = POINTS[index];
+      for (int power = points - 1 - index; power > 0; power --) {
+        multiplySmall(coefficients[power], -point);
+        add(coefficients[power], coefficients[power - 1]);
+      }
+      multiplySmall(coefficients[0], -point);
+      add(coefficients[0], values[index]);
+    }
+    // Recompose: z = sum of coefficients shifted by piece limbs
+    Arrays.fill(z, 0, xLen + yLen, 0);
+    for (int power = 0; power < points; power ++) {
+      int[] coefficient = coefficients[power];
+      BigNum.addInto(z, power * piece, coefficient,
+          BigNum.trimmed(coefficient, width));
+    }
+    BigNum.addInto(z, points * piece, infinity,
+        BigNum.trimmed(infinity, width));
+  }
+
+  // Value of a polynomial with limb array parts at a small point
+  static int[] evaluate(int[] x, int xLen, int piece, int parts, int point) {
+    int[] value = new int[piece + 2];
+    for (int part = parts - 1; part >= 0; part --) { // Horner's method
+      multiplySmall(value, point);
+      add(value, slice(x, xLen, piece, part, piece + 2));
+    }
+    return value;
+  }
+
+  // Part of limb array as a non-negative number of the given width
+  static int[] slice(int[] x, int xLen, int piece, int part, int width) {
+    int[] value = new int[width];
+    int from = Math.min(part * piece, xLen);
+    int to = Math.min(from + piece, xLen);
+    System.arraycopy(x, from, value, 0, to - from);
+    return value;
+  }
+
+  // Signed product of two's complement numbers, sign extended to width
+  static int[] product(int[] x, int[] y, int width) {
+    if (x == y) { // square is not negative
+      int[] xAbs = x.clone();
+      if (isNegative(xAbs)) negate(xAbs);
+      int xLen = BigNum.trimmed(xAbs, xAbs.length);
+      int[] z = new int[Math.max(width, 2 * xLen)];
+      if (xLen > 0) BigNum.square(xAbs, xLen, z);
+      return Arrays.copyOf(z, width);
+    }
+    boolean negative = isNegative(x) ^ isNegative(y);
+    int[] xAbs = x.clone(), yAbs = y.clone();
+    if (isNegative(xAbs)) negate(xAbs);
+    if (isNegative(yAbs)) negate(yAbs);
+    int xLen = BigNum.trimmed(xAbs, xAbs.length);
+    int yLen = BigNum.trimmed(yAbs, yAbs.length);
+    int[] z = new int[Math.max(width, xLen + yLen)];
+    if (xLen > 0 && yLen > 0) BigNum.multiply(xAbs, xLen, yAbs, yLen, z);
+    z = Arrays.copyOf(z, width);
+    if (negative) negate(z);
+    return z;
+  }
+
+  /* Two's complement kernels, x and y have the same width */
+
+  static boolean isNegative(int[] x) {
+    return x[x.length - 1] < 0;
+  }
+
+  static void negate(int[] x) {
+    long carry = 1;
+    for (int index = 0; index < x.length; index ++) {
+      carry += ~x[index] & BigNum.LIMB_MASK;
+      x[index] = (int) carry;
+      carry >>>= BigNum.LIMB_BITS;
+    }
+  }
+
+  // x = x + y (wraps around the width)
+  static void add(int[] x, int[] y) {
+    long carry = 0;
+    for (int index = 0; index < x.length; index ++) {
+      carry += (x[index] & BigNum.LIMB_MASK) + (y[index] & BigNum.LIMB_MASK);
+      x[index] = (int) carry;
+      carry >>>= BigNum.LIMB_BITS;
+    }
+  }
+
+  // x = x - y (wraps around the width)
+  static void subtract(int[] x, int[] y) {
+    long borrow = 0;
+    for (int index = 0; index < x.length; index ++) {
+      borrow += (x[index] & BigNum.LIMB_MASK) - (y[index] & BigNum.LIMB_MASK);
+      x[index] = (int) borrow;
+      borrow >>= BigNum.LIMB_BITS;
+    }
+  }
+
+  // x = x * factor for a small signed factor
+  static void multiplySmall(int[] x, int factor) {
+    BigNum.multiplyAddWord(x, x.length, Math.abs(factor), 0);
+    if (factor < 0) negate(x);
+  }
+
+  // x = x / divisor for a small signed divisor, division must be exact
+  static void divideSmall(int[] x, int divisor) {
+    boolean negative = isNegative(x) ^ (divisor < 0);
+    if (isNegative(x)) negate(x);
+    BigNum.divideWord(x, x.length, Math.abs(divisor));
+    if (negative) negate(x);
+  }
+}
+
+/* vim: set si et ts=2 sw=2: */
@@ -24,8 +24,32 @@
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static com.github.valv.RandomDigits.randomDigits;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import com.github.valv.BigNum;
+import com.github.valv.BigSNum;
 
 /**
  * BigNumTest class provides JUnit (4.0 and higher) test case for BigNum class.
@@ -83,7 +107,7 @@ public class BigNumTest {
     // Create numbers
     byte hex = 16;
     // Addition is implemented for BigNum arguments only (.add(BigNum))
-    // Addition is possible only with arguments of the same radix
+    // Addition of numbers with different radix keeps the radix of the first
     // Addition with null does not affect a value
     BigNum testNumber1 = new BigNum("99999999999999999999"); // 20 dec
     assertNotNull("String constructor failed:", testNumber1);
@@ -134,7 +158,7 @@ public class BigNumTest {
     byte hex = 16;
     // Subtraction is not performed if a number has less than one digit (null)
     // If subtrahend is more than minuend, then zero is returned
-    // Operations on numbers with different radix are not supported yet
+    // Operations on numbers with different radix are tested separately
     BigNum testNumber1 = new BigNum("100000000000000000000"); // 21 dec
     assertNotNull("String constructor failed:", testNumber1);
     BigNum testNumber2 = new BigNum(1); // one
@@ -188,7 +212,7 @@ public class BigNumTest {
     // Create numbers
     byte hex = 16;
     // Multiplication is supported only by object (BigNum)
-    // Multiplication of numbers with different radix is not supported yet
+    // Multiplication of numbers with different radix is tested separately
     // Multiplication by zero or infinity will result respectively
     BigNum testNumber1 = new BigNum("55555555555555555555"); // 20 dec
     assertNotNull("String constructor failed:", testNumber1);
@@ -276,6 +300,22 @@ public class BigNumTest {
     testNumber6.divide(testNumber8);
     assertEquals("Hexadecimal number-by-zero division failed:",
       "null", testNumber6.toString());
+    BigNum testOdd = new BigNum(7); // a non-zero lowest digit as well
+    testOdd.divide(new BigNum(0));
+    assertEquals("Odd number-by-zero division failed:", "null",
+      testOdd.toString());
+    // A larger divisor gives zero and the dividend as the remainder
+    BigNum testSmall = new BigNum("123456789012345678901");
+    BigNum testLarge = new BigNum("98765432109876543210987654321");
+    assertEquals("Larger divisor remainder failed:", "123456789012345678901",
+      testSmall.divide(testLarge).toString());
+    assertEquals("Larger divisor quotient failed:", "0",
+      testSmall.toString());
+    testSmall = new BigNum(5);
+    assertEquals("Larger divisor remainder failed:", "5",
+      testSmall.divide(testLarge).toString());
+    assertEquals("Larger divisor quotient failed:", "0",
+      testSmall.toString());
     testNumber4.divide(testNumber9);
     assertEquals("Default (decimal) zero-by-null division failed:",
       "0", testNumber4.toString());
@@ -298,6 +338,198 @@ public class BigNumTest {
       + "\nnull % 0 = " + testNumber9);
   }
 
+  @Test
+  public void testMixedRadix() {
+    // Numbers of different radix are combined directly,
+    // the result keeps the radix of the receiver
+    byte hex = 16;
+    BigNum testNumber1 = new BigNum("ff", hex); // 255
+    testNumber1.add(new BigNum(1)); // + 1 (decimal)
+    assertEquals("Mixed radix addition failed:",
+      "100", testNumber1.toString());
+    testNumber1.subtract(new BigNum(16)); // - 16 (decimal)
+    assertEquals("Mixed radix subtraction failed:",
+      "f0", testNumber1.toString());
+    testNumber1.multiply(new BigNum("12345678901234567890")); // decimal
+    assertEquals("Mixed radix multiplication failed:",
+      "a09f5ef41c6d1a24e0", testNumber1.toString());
+    BigNum testRemainder = testNumber1.divide(new BigNum("1000", (byte) 2));
+    assertEquals("Mixed radix division failed:",
+      "1413ebde838da3449c", testNumber1.toString());
+    assertEquals("Mixed radix remainder failed:",
+      "0", testRemainder.toString());
+    // Conversion to another radix is cached, but follows value changes
+    assertEquals("Radix conversion failed:",
+      "370370367037037036700", testNumber1.toString((byte) 10));
+    assertEquals("Cached radix conversion failed:",
+      "370370367037037036700", testNumber1.toString((byte) 10));
+    testNumber1.add(new BigNum(1));
+    assertEquals("Radix conversion after change failed:",
+      "370370367037037036701", testNumber1.toString((byte) 10));
+    assertEquals("Own radix conversion after change failed:",
+      "1413ebde838da3449d", testNumber1.toString());
+  }
+
+  @Test
+  public void testLimbStorage() {
+    // Numbers are stored in 32 bit limbs, so values crossing limb borders
+    // must survive conversion in any radix
+    String power = "1" + new String(new char[100]).replace('\0', '0');
+    for (byte radix = 2; radix <= 36; radix ++) {
+      BigNum testNumber = new BigNum(power, radix); // radix^100
+      assertEquals("Limb storage round trip failed (radix "
+        + radix + "):", power, testNumber.toString());
+      assertEquals("Limb storage length failed (radix " + radix + "):",
+        101, testNumber.length());
+      testNumber.subtract(new BigNum(1, radix));
+      assertEquals("Limb storage borrow failed (radix " + radix + "):",
+        100, testNumber.length());
+      testNumber.add(new BigNum(1, radix));
+      assertEquals("Limb storage carry failed (radix " + radix + "):",
+        power, testNumber.toString());
+    }
+  }
+
+  @Test
+  public void testKaratsubaMultiplication() {
+    // Long numbers are multiplied with Karatsuba algorithm,
+    // (radix^n - 1)^2 = radix^2n - 2 * radix^n + 1 has a known digit pattern
+    int n = 3000;
+    for (byte radix : new byte[] {2, 10, 16, 36}) {
+      char top = "0123456789abcdefghijklmnopqrstuvwxyz".charAt(radix - 1);
+      char next = "0123456789abcdefghijklmnopqrstuvwxyz".charAt(radix - 2);
+      String digits = new String(new char[n]).replace('\0', top);
+      String zeroes = new String(new char[n - 1]).replace('\0', '0');
+      BigNum testNumber1 = new BigNum(digits, radix);
+      BigNum testNumber2 = new BigNum(digits, radix);
+      testNumber1.multiply(testNumber2);
+      assertEquals("Karatsuba multiplication failed (radix " + radix + "):",
+        digits.substring(1) + next + zeroes + "1", testNumber1.toString());
+    }
+  }
+
+  @Test
+  public void testToomCookMultiplication() {
+    // Toom-Cook products are cross-checked with schoolbook multiplication
+    // by single chunks of digits: x * y = (x * y1) * 10^9 + x * y0 ...
+    Random random = new Random(17);
+    for (int digits : new int[] {6000, 45000}) {
+      BigNum testNumber1 = new BigNum(randomDigits(random, digits));
+      String multiplier = randomDigits(random, digits - 7);
+      BigNum testNumber2 = new BigNum(multiplier);
+      BigNum chunkPower = new BigNum(1000000000);
+      BigNum testSchoolbook = new BigNum(0);
+      for (int position = 0; position < multiplier.length();
+          position += 9) {
+        int end = Math.min(position + 9, multiplier.length());
+        BigNum testChunk = new BigNum(testNumber1);
+        testChunk.multiply(new BigNum(multiplier.substring(position, end)));
+        testSchoolbook.multiply(end - position == 9
+          ? chunkPower : new BigNum((int) Math.pow(10, end - position)));
+        testSchoolbook.add(testChunk);
+      }
+      testNumber1.multiply(testNumber2);
+      assertEquals("Toom-Cook multiplication failed (" + digits + " digits):",
+        testSchoolbook.toString(), testNumber1.toString());
+    }
+  }
+
+  @Test
+  public void testTransformMultiplication() {
+    // Huge numbers are multiplied with number theoretic transform
+    int n = 80000;
+    String digits = new String(new char[n]).replace('\0', '9');
+    String zeroes = new String(new char[n - 1]).replace('\0', '0');
+    BigNum testNumber1 = new BigNum(digits);
+    BigNum testNumber2 = new BigNum(digits);
+    testNumber1.multiply(testNumber2);
+    assertEquals("Transform multiplication failed:",
+      digits.substring(1) + "8" + zeroes + "1", testNumber1.toString());
+    // Product of the largest limbs checks exactness of remainders
+    BigNum testNumber3 = new BigNum(
+      new String(new char[64000]).replace('\0', 'f'), (byte) 16);
+    BigNum testNumber4 = new BigNum(testNumber3);
+    testNumber3.multiply(testNumber4);
+    testNumber3.divide(testNumber4);
+    assertEquals("Transform multiplication exactness failed:",
+      testNumber4.toString(), testNumber3.toString());
+  }
+
+  @Test
+  public void testRecursiveDivision() {
+    // Long divisors are handled by Burnikel-Ziegler recursive division,
+    // check that quotient * divisor + remainder = dividend
+    Random random = new Random(29);
+    for (byte radix : new byte[] {10, 16}) {
+      BigNum testDividend = new BigNum(randomDigits(random, 30000), radix);
+      BigNum testDivisor = new BigNum(randomDigits(random, 11000), radix);
+      BigNum testQuotient = new BigNum(testDividend);
+      BigNum testRemainder = testQuotient.divide(testDivisor);
+      BigNum testProduct = new BigNum(testQuotient);
+      testProduct.multiply(testDivisor);
+      testProduct.add(testRemainder);
+      assertEquals("Recursive division failed (radix " + radix + "):",
+        testDividend.toString(), testProduct.toString());
+      testRemainder.subtract(testDivisor);
+      assertEquals("Recursive division remainder failed (radix "
+        + radix + "):", "0", testRemainder.toString());
+    }
+  }
+
+  @Test
+  public void testScratchDivision() {
+    // Division with a reusable remainder gives the same result as
+    // the plain one and does not allocate in the long division loop
+    Random random = new Random(31);
+    BigNum testNumber1 = new BigNum(randomDigits(random, 20000));
+    BigNum testNumber2 = new BigNum(testNumber1);
+    BigNum testDivisor = new BigNum(randomDigits(random, 110));
+    BigNum testRemainder = new BigNum();
+    for (int index = 0; index < 10; index ++) {
+      BigNum testExpected = testNumber2.divide(testDivisor);
+      assertEquals("Scratch division remainder failed:",
+        testExpected.toString(),
+        testNumber1.divide(testDivisor, testRemainder).toString());
+      assertEquals("Scratch division quotient failed:",
+        testNumber2.toString(), testNumber1.toString());
+    }
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean threadBean =
+        (com.sun.management.ThreadMXBean) bean;
+      long thread = Thread.currentThread().getId();
+      long allocated = threadBean.getThreadAllocatedBytes(thread);
+      for (int index = 0; index < 150; index ++) {
+        testNumber1.divide(testDivisor, testRemainder);
+      }
+      allocated = threadBean.getThreadAllocatedBytes(thread) - allocated;
+      assertTrue("Scratch division allocated " + allocated + " bytes:",
+        allocated < 1024);
+    }
+  }
+
+  @Test
+  public void testRadixConversion() {
+    // Long numbers are parsed and printed by halves (divide and conquer),
+    // power of two radices bit by bit
+    Random random = new Random(37);
+    for (byte radix : new byte[] {3, 10, 16, 32, 36}) {
+      StringBuilder digits = new StringBuilder();
+      digits.append("123456789abcdefghijklmnopqrstuvwxyz".charAt(
+        random.nextInt(radix - 1)));
+      while (digits.length() < 60000) {
+        digits.append("0123456789abcdefghijklmnopqrstuvwxyz".charAt(
+          random.nextInt(radix)));
+      }
+      BigNum testNumber = new BigNum(digits.toString(), radix);
+      assertEquals("Radix conversion failed (radix " + radix + "):",
+        digits.toString(), testNumber.toString());
+      String power = "1" + new String(new char[60000]).replace('\0', '0');
+      assertEquals("Radix conversion of a power failed (radix "
+        + radix + "):", power, new BigNum(power, radix).toString());
+    }
+  }
+
   @Test
   public void testFactorial () {
     BigNum testFactorial = new BigNum(1);
@@ -311,6 +543,442 @@ public class BigNumTest {
       + " (" + Integer.toString(testFactorial.length()) + " digits)");
 
   }
+
+  @Test
+  public void testSquare() {
+    // Squares (schoolbook, Karatsuba, Toom-Cook and NTT sizes) are the same
+    // as products of two copies, x.multiply(x) is detected as a square
+    Random random = new Random(37);
+    int[] testSizes = {1, 9, 20, 700, 1500, 6000, 45000, 70000};
+    for (int testSize : testSizes) {
+      BigNum testNumber = new BigNum(randomDigits(random, testSize));
+      BigNum testExpected = new BigNum(testNumber);
+      testExpected.multiply(new BigNum(testNumber));
+      BigNum testSquare = new BigNum(testNumber);
+      testSquare.square();
+      assertEquals("Square of " + testSize + " digits failed:",
+        testExpected.toString(), testSquare.toString());
+      testNumber.multiply(testNumber);
+      assertEquals("Self multiplication of " + testSize + " digits failed:",
+        testExpected.toString(), testNumber.toString());
+    }
+    BigNum testZero = new BigNum(0);
+    testZero.square();
+    assertEquals("Square of zero failed:", "0", testZero.toString());
+  }
+
+  @Test
+  public void testParallelMultiplication() {
+    // Parallel products (Karatsuba, slices and NTT split into tasks) are
+    // the same as sequential ones
+    Random random = new Random(23);
+    ForkJoinPool testPool = new ForkJoinPool(4);
+    int[][] testSizes = {{3000, 2500}, {20000, 1500}, {70000, 65000}};
+    for (int[] testSize : testSizes) {
+      BigNum testNumber1 = new BigNum(randomDigits(random, testSize[0]));
+      BigNum testNumber2 = new BigNum(randomDigits(random, testSize[1]));
+      BigNum testExpected = new BigNum(testNumber1);
+      testExpected.multiply(testNumber2);
+      testNumber1.parallelMultiply(testNumber2, testPool, 1000);
+      assertEquals("Parallel multiplication of " + testSize[0] + " by "
+        + testSize[1] + " digits failed:", testExpected.toString(),
+        testNumber1.toString());
+    }
+    testPool.shutdown();
+  }
+
+  @Test
+  public void testModularExponentiation() {
+    // Fermat's little theorem for the prime 2^127 - 1: a^(p - 1) mod p = 1
+    BigNum testPrime = new BigNum("170141183460469231731687303715884105727");
+    BigNum testExponent = new BigNum(testPrime);
+    testExponent.subtract(new BigNum(1));
+    BigNum testNumber = new BigNum("123456789012345678901234567890");
+    testNumber.modPow(testExponent, testPrime);
+    assertEquals("Montgomery exponentiation failed:", "1",
+      testNumber.toString());
+    // Odd and even moduli against repeated multiplication and division
+    Random random = new Random(29);
+    String[] testModuli = {randomDigits(random, 300) + "7",
+      randomDigits(random, 200) + "6", "65537"};
+    for (String testModulus : testModuli) {
+      BigNum testBase = new BigNum(randomDigits(random, 400));
+      BigNum testExpected = new BigNum(1);
+      for (int index = 0; index < 45; index ++) {
+        testExpected.multiply(testBase);
+        testExpected = testExpected.divide(new BigNum(testModulus));
+      }
+      testBase.modPow(new BigNum(45), new BigNum(testModulus));
+      assertEquals("Modular exponentiation by " + testModulus + " failed:",
+        testExpected.toString(), testBase.toString());
+    }
+    // Exponentiation of 2048 bit numbers does not allocate in the loop
+    BigNum testModulus = new BigNum(randomDigits(random, 616) + "1");
+    testExponent = new BigNum(randomDigits(random, 617));
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean threadBean =
+        (com.sun.management.ThreadMXBean) bean;
+      long thread = Thread.currentThread().getId();
+      testNumber = new BigNum(randomDigits(random, 600));
+      long allocated = threadBean.getThreadAllocatedBytes(thread);
+      testNumber.modPow(testExponent, testModulus);
+      allocated = threadBean.getThreadAllocatedBytes(thread) - allocated;
+      assertTrue("Modular exponentiation allocated " + allocated + " bytes:",
+        allocated < 65536);
+    }
+  }
+
+  @Test
+  public void testGreatestCommonDivisor() {
+    // gcd(a * g, b * g) = g for coprime a and b, Bezout's identity holds
+    Random random = new Random(41);
+    BigNum testDivisor = new BigNum(randomDigits(random, 3000));
+    BigNum testNumber1 = new BigNum(randomDigits(random, 10000) + "1");
+    BigNum testNumber2 = new BigNum(testNumber1);
+    testNumber2.add(new BigNum(1)); // n and n + 1 are coprime
+    testNumber1.multiply(testDivisor);
+    testNumber2.multiply(testDivisor);
+    assertEquals("GCD failed:", testDivisor.toString(),
+      BigNum.gcd(testNumber1, testNumber2).toString());
+    BigNum[][] testPairs = {{testNumber1, testNumber2},
+      {testNumber2, testNumber1},
+      {new BigNum(randomDigits(random, 700)), new BigNum(240)},
+      {new BigNum(12345), new BigNum(12345)}};
+    for (BigNum[] testPair : testPairs) {
+      BigSNum[] testResult = BigNum.extendedGcd(testPair[0], testPair[1]);
+      assertEquals("Extended GCD failed:",
+        BigNum.gcd(testPair[0], testPair[1]).toString(),
+        testResult[0].toString());
+      // s * x + t * y = gcd: move negative terms to the right side
+      BigNum testLeft = new BigNum(0);
+      BigNum testRight = new BigNum(testResult[0]);
+      for (int index = 1; index <= 2; index ++) {
+        BigNum testTerm = new BigNum(testResult[index]); // magnitude
+        testTerm.multiply(testPair[index - 1]);
+        if (testResult[index].toString().startsWith("-")) {
+          testRight.add(testTerm);
+        } else {
+          testLeft.add(testTerm);
+        }
+      }
+      assertEquals("Bezout's identity failed:", testRight.toString(),
+        testLeft.toString());
+    }
+    assertEquals("GCD with zero failed:", "240",
+      BigNum.gcd(new BigNum(0), new BigNum(240)).toString());
+  }
+
+  @Test
+  public void testIntegerRoot() {
+    // root^k <= x < (root + 1)^k and x = root^k + remainder
+    Random random = new Random(43);
+    int[] testDegrees = {2, 2, 3, 5, 17, 200};
+    for (int testDegree : testDegrees) {
+      BigNum testNumber = new BigNum(randomDigits(random, 5000));
+      BigNum testRoot = new BigNum(testNumber);
+      BigNum testRemainder = testRoot.iroot(testDegree);
+      BigNum testPower = new BigNum(1);
+      for (int index = 0; index < testDegree; index ++) {
+        testPower.multiply(testRoot);
+      }
+      BigNum testSum = new BigNum(testPower);
+      testSum.add(testRemainder);
+      assertEquals("Root of degree " + testDegree + " failed:",
+        testNumber.toString(), testSum.toString());
+      BigNum testNext = new BigNum(testRoot);
+      testNext.add(new BigNum(1));
+      testPower = new BigNum(1);
+      for (int index = 0; index < testDegree; index ++) {
+        testPower.multiply(testNext);
+      }
+      testPower.subtract(testNumber); // underflow gives zero
+      assertTrue("Root of degree " + testDegree + " is too small:",
+        !testPower.toString().equals("0"));
+    }
+    BigNum testSquare = new BigNum(
+      "152415787532388367504942236884722755800955129");
+    assertEquals("Square root remainder failed:", "0",
+      testSquare.isqrt().toString());
+    assertEquals("Square root failed:", "12345678901234567890123",
+      testSquare.toString());
+    testSquare = new BigNum(99);
+    assertEquals("Small square root remainder failed:", "18",
+      testSquare.isqrt().toString());
+    assertEquals("Small square root failed:", "9", testSquare.toString());
+    // Roots are not shared, changing one keeps the next root intact
+    testSquare = new BigNum(3);
+    testSquare.isqrt();
+    testSquare.shiftRightBits(1);
+    testSquare = new BigNum(3);
+    assertEquals("Unit square root remainder failed:", "2",
+      testSquare.isqrt().toString());
+    assertEquals("Unit square root failed:", "1", testSquare.toString());
+  }
+
+  @Test
+  public void testShift() {
+    // Digit shifts, bit shifts and digit slices of a known number
+    BigNum testNumber = new BigNum("123456789012345678901234567890");
+    testNumber.shiftLeft(5);
+    assertEquals("Shift left failed:",
+      "12345678901234567890123456789000000", testNumber.toString());
+    testNumber.shiftRight(12);
+    assertEquals("Shift right failed:", "12345678901234567890123",
+      testNumber.toString());
+    assertEquals("Low digits failed:", "890123",
+      testNumber.lowDigits(6).toString());
+    assertEquals("High digits failed:", "12345678901234567",
+      testNumber.highDigits(6).toString());
+    testNumber.shiftRight(40);
+    assertEquals("Shift out failed:", "0", testNumber.toString());
+    BigNum testHex = new BigNum("fedcba9876543210fedcba9876543210",
+      (byte) 16);
+    testHex.shiftLeft(3);
+    assertEquals("Hex shift left failed:",
+      "fedcba9876543210fedcba9876543210000", testHex.toString());
+    assertEquals("Hex low digits failed:", "76543210000",
+      testHex.lowDigits(11).toString());
+    assertEquals("Hex high digits failed:", "fedcba98765",
+      testHex.highDigits(24).toString());
+    testHex.shiftRightBits(13);
+    assertEquals("Bit shift right failed:",
+      "7f6e5d4c3b2a19087f6e5d4c3b2a1908", testHex.toString());
+    testHex.shiftLeftBits(-4);
+    assertEquals("Negative bit shift failed:",
+      "7f6e5d4c3b2a19087f6e5d4c3b2a190", testHex.toString());
+    BigNum testNull = new BigNum();
+    testNull.shiftLeft(3);
+    assertEquals("Null shift failed:", "null", testNull.toString());
+  }
+
+  @Test
+  public void testStreamParser() throws IOException {
+    // Readers, streams and mapped files give the same number as a string
+    Random random = new Random(47);
+    String testDigits = randomDigits(random, 30000) + "\n";
+    String testExpected = new BigNum(testDigits).toString();
+    assertEquals("Reader parsing failed:", testExpected,
+      BigNum.parse(new StringReader(testDigits), (byte) 10).toString());
+    assertEquals("Stream parsing failed:", testExpected,
+      BigNum.parse(new ByteArrayInputStream(testDigits.getBytes(
+        StandardCharsets.US_ASCII)), (byte) 10).toString());
+    Path testFile = Files.createTempFile("BigNumTest", ".txt");
+    try {
+      Files.write(testFile, testDigits.getBytes(StandardCharsets.US_ASCII));
+      try (FileChannel testChannel = FileChannel.open(testFile)) {
+        assertEquals("File parsing failed:", testExpected,
+          BigNum.parse(testChannel, (byte) 10).toString());
+      }
+    } finally {
+      Files.delete(testFile);
+    }
+    String testHex = "DEAD beef " + randomDigits(random, 5000);
+    assertEquals("Hex parsing failed:",
+      new BigNum(testHex, (byte) 16).toString(),
+      BigNum.parse(new StringReader(testHex), (byte) 16).toString());
+    assertEquals("Empty parsing failed:", "null",
+      BigNum.parse(new StringReader(" ,"), (byte) 10).toString());
+    // Characters out of the radix are skipped by strings and streams alike
+    assertEquals("Out of radix string failed:", "12",
+      new BigNum("12a", (byte) 10).toString());
+    assertEquals("Out of radix parsing failed:", "12",
+      BigNum.parse(new StringReader("12a"), (byte) 10).toString());
+    assertEquals("Separated parsing failed:", "1000000",
+      BigNum.parse(new StringReader("1 000_000"), (byte) 10).toString());
+  }
+
+  @Test
+  public void testWriteTo() throws IOException {
+    // Streamed digits are the same as the string, for appendables and
+    // channels, with zero padded pieces in the middle
+    Random random = new Random(53);
+    String[] testNumbers = {randomDigits(random, 40000),
+      randomDigits(random, 9000) + new String(new char[5000]).replace('\0',
+        '0') + "7", "1"};
+    for (String testDigits : testNumbers) {
+      BigNum testNumber = new BigNum(testDigits);
+      StringWriter testWriter = new StringWriter();
+      testNumber.writeTo(testWriter);
+      ByteArrayOutputStream testStream = new ByteArrayOutputStream();
+      testNumber.writeTo(Channels.newChannel(testStream));
+      String testExpected = new BigNum(testNumber).toString();
+      assertEquals("Writer output failed:", testExpected,
+        testWriter.toString());
+      assertEquals("Channel output failed:", testExpected,
+        new String(testStream.toByteArray(), StandardCharsets.US_ASCII));
+    }
+    BigNum testHex = new BigNum(randomDigits(random, 3000), (byte) 16);
+    StringBuilder testBuilder = new StringBuilder();
+    testHex.writeTo(testBuilder);
+    assertEquals("Hex output failed:", testHex.toString(),
+      testBuilder.toString());
+    testBuilder.setLength(0);
+    new BigNum().writeTo(testBuilder);
+    assertEquals("Null output failed:", "null", testBuilder.toString());
+  }
+
+  @Test
+  public void testCarryPropagation() {
+    // Long sums with carries rippling through runs of full limbs (the limb
+    // kernels take blocks of lanes, ripples go through the scalar loop)
+    Random random = new Random(59);
+    for (int round = 0; round < 50; round ++) {
+      StringBuilder testDigits = new StringBuilder();
+      while (testDigits.length() < 2000) {
+        int testRun = 1 + random.nextInt(200);
+        for (int index = 0; index < testRun; index ++) {
+          testDigits.append(random.nextBoolean() ? 'f'
+            : Character.forDigit(random.nextInt(16), 16));
+        }
+        for (int index = random.nextInt(3) * 64; index > 0; index --) {
+          testDigits.append('f');
+        }
+      }
+      BigNum testNumber = new BigNum(testDigits.toString(), (byte) 16);
+      BigNum testAddend = new BigNum(randomDigits(random,
+        1 + random.nextInt(2000)), (byte) 16);
+      if (round % 5 == 0) testAddend = new BigNum(1, (byte) 16);
+      BigNum testSum = new BigNum(testNumber);
+      testSum.add(testAddend);
+      BigInteger testExpected = new BigInteger(testNumber.toString(), 16)
+        .add(new BigInteger(testAddend.toString(), 16));
+      assertEquals("Carry propagation failed:", testExpected.toString(16),
+        testSum.toString());
+      testSum.subtract(testAddend);
+      assertEquals("Borrow propagation failed:", testNumber.toString(),
+        testSum.toString());
+      assertEquals("Equal prefix compare failed:", "0",
+        testSum.divide(testNumber).toString());
+      assertEquals("Equal prefix quotient failed:", "1", testSum.toString());
+    }
+  }
+
+  @Test
+  public void testBinaryForm() {
+    // Numbers written one after another into heap and direct buffers are
+    // read back in order, radix hints and special values included
+    Random random = new Random(61);
+    BigNum testInfinity = BigNum.readFrom(ByteBuffer.wrap(
+      new byte[] {1, 4, 10, 0, 0, 0, 0})); // flags of infinity
+    assertEquals("Infinity failed:", "infinity", testInfinity.toString());
+    BigNum[] testNumbers = {new BigNum(randomDigits(random, 5000)),
+      new BigNum(randomDigits(random, 300), (byte) 16), new BigNum(0),
+      new BigNum(), new BigNum(7, (byte) 2), testInfinity};
+    int testSize = 0;
+    for (BigNum testNumber : testNumbers) testSize += testNumber.binarySize();
+    ByteBuffer[] testBuffers = {ByteBuffer.allocate(testSize),
+      ByteBuffer.allocateDirect(testSize + 16)};
+    for (ByteBuffer testBuffer : testBuffers) {
+      for (BigNum testNumber : testNumbers) testNumber.writeTo(testBuffer);
+      assertEquals("Binary size failed:", testSize, testBuffer.position());
+      testBuffer.flip();
+      for (BigNum testNumber : testNumbers) {
+        assertEquals("Binary form failed:", testNumber.toString(),
+          BigNum.readFrom(testBuffer).toString());
+      }
+      assertEquals("Binary read failed:", 0, testBuffer.remaining());
+    }
+    assertEquals("Binary size of zero failed:", 7,
+      new BigNum(0).binarySize());
+  }
+
+  @Test
+  public void testProductTree() {
+    // Product tree and prime swing factorial give the same result as
+    // sequential multiplication
+    BigNum testExpected = new BigNum(1);
+    for (int index = 1; index <= 3000; index ++) {
+      testExpected.multiply(new BigNum(index));
+      if (index % 250 == 0 || index < 80) {
+        assertEquals("Factorial of " + index + " failed:",
+          testExpected.toString(), BigNum.factorial(index).toString());
+      }
+    }
+    assertEquals("Factorial of 0 failed:", "1",
+      BigNum.factorial(0).toString());
+    Random random = new Random(19);
+    BigNum[] testFactors = new BigNum[37];
+    testExpected = new BigNum(1);
+    for (int index = 0; index < testFactors.length; index ++) {
+      testFactors[index] = new BigNum(randomDigits(random,
+        1 + random.nextInt(400)));
+      testExpected.multiply(testFactors[index]);
+    }
+    assertEquals("Product tree failed:", testExpected.toString(),
+      BigNum.product(testFactors).toString());
+    assertEquals("Empty product failed:", "1", BigNum.product().toString());
+    assertEquals("Product with zero failed:", "0",
+      BigNum.product(testFactors[0], new BigNum(0), testFactors[1])
+        .toString());
+  }
+
+  @Test
+  public void testBufferLinkage() throws IOException {
+    // Classes call position, limit, clear and flip through Buffer, the
+    // covariant overrides of JDK 9 and higher do not link on Java 8
+    File testClasses = new File(BigNum.class.getProtectionDomain()
+      .getCodeSource().getLocation().getPath(), "com/github/valv");
+    File[] testFiles = testClasses.listFiles();
+    assertNotNull("Class files failed:", testFiles);
+    for (File testFile : testFiles) {
+      if (!testFile.getName().endsWith(".class")) continue;
+      assertEquals("Linkage of " + testFile.getName() + " failed:", "",
+        covariantBufferCalls(testFile));
+    }
+  }
+
+  // Covariant buffer methods referenced in the constant pool of a class
+  private static String covariantBufferCalls(File file) throws IOException {
+    try (DataInputStream input = new DataInputStream(
+        new BufferedInputStream(new FileInputStream(file)))) {
+      input.skipBytes(8); // magic and version
+      int count = input.readUnsignedShort();
+      int[] tags = new int[count];
+      int[] first = new int[count];
+      int[] second = new int[count];
+      String[] texts = new String[count];
+      for (int index = 1; index < count; index ++) {
+        tags[index] = input.readUnsignedByte();
+        switch (tags[index]) {
+          case 1: // Utf8
+            texts[index] = input.readUTF();
+            break;
+          case 3: case 4: // Integer, Float
+            input.skipBytes(4);
+            break;
+          case 5: case 6: // Long, Double take two entries
+            input.skipBytes(8);
+            index ++;
+            break;
+          case 15: // MethodHandle
+            input.skipBytes(1);
+            first[index] = input.readUnsignedShort();
+            break;
+          case 7: case 8: case 16: case 19: case 20: // one reference
+            first[index] = input.readUnsignedShort();
+            break;
+          default: // member references, NameAndType, dynamic constants
+            first[index] = input.readUnsignedShort();
+            second[index] = input.readUnsignedShort();
+        }
+      }
+      StringBuilder calls = new StringBuilder();
+      for (int index = 1; index < count; index ++) {
+        if (tags[index] != 10) continue; // Methodref
+        String owner = texts[first[first[index]]];
+        String name = texts[first[second[index]]];
+        String type = texts[second[second[index]]];
+        if (owner.matches("java/nio/\\w+Buffer")
+            && !owner.equals("java/nio/Buffer")
+            && name.matches("position|limit|clear|flip|mark|reset|rewind")
+            && type.endsWith("Buffer;")) {
+          calls.append(owner).append('.').append(name).append(type);
+        }
+      }
+      return calls.toString();
+    }
+  }
 }
 
 /* vim: set si et ts=2 sw=2: */
@@ -24,6 +24,9 @@
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
 import com.github.valv.BigSNum;
 
 /**
@@ -37,6 +40,32 @@ public class BigSNumTest {
   public void testStub() {
     assertEquals(true, true);
   }
+
+  @Test
+  public void testBinaryForm() {
+    // The sign goes with the binary form
+    ByteBuffer testBuffer = ByteBuffer.allocateDirect(64);
+    new BigSNum("-123456789012345678901234567890").writeTo(testBuffer);
+    new BigSNum(42).writeTo(testBuffer);
+    testBuffer.flip();
+    assertEquals("Negative binary form failed:",
+      "-123456789012345678901234567890",
+      BigSNum.readFrom(testBuffer).toString());
+    assertEquals("Positive binary form failed:", "42",
+      BigSNum.readFrom(testBuffer).toString());
+  }
+
+  @Test
+  public void testWriteTo() throws IOException {
+    // Streamed digits keep the sign
+    StringBuilder testOutput = new StringBuilder();
+    new BigSNum("-98765432109876543210").writeTo(testOutput);
+    assertEquals("Signed writing failed:", "-98765432109876543210",
+      testOutput.toString());
+    testOutput.setLength(0);
+    new BigSNum(-0).writeTo(testOutput);
+    assertEquals("Signed zero writing failed:", "0", testOutput.toString());
+  }
 }
 
 // vim: set si et ts=2 sw=2 :
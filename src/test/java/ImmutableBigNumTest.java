@@ -0,0 +1,143 @@
+/*
+ * @(#)ImmutableBigNumTest.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static com.github.valv.RandomDigits.randomDigits;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import com.github.valv.BigNum;
+import com.github.valv.ImmutableBigNum;
+
+/**
+ * ImmutableBigNumTest class provides JUnit (4.0 and higher) test case for
+ * ImmutableBigNum class.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+public class ImmutableBigNumTest {
+  @Test
+  public void testArithmetic() {
+    // Results are the same as with BigNum, operands never change
+    Random random = new Random(17);
+    String digits1 = randomDigits(random, 700);
+    String digits2 = randomDigits(random, 300);
+    ImmutableBigNum testNumber1 = new ImmutableBigNum(digits1);
+    ImmutableBigNum testNumber2 = new ImmutableBigNum(digits2);
+    BigNum testExpected = new BigNum(digits1);
+    testExpected.add(new BigNum(digits2));
+    assertEquals("Addition failed:", testExpected.toString(),
+      testNumber1.add(testNumber2).toString());
+    testExpected = new BigNum(digits1);
+    testExpected.subtract(new BigNum(digits2));
+    assertEquals("Subtraction failed:", testExpected.toString(),
+      testNumber1.subtract(testNumber2).toString());
+    testExpected = new BigNum(digits1);
+    testExpected.multiply(new BigNum(digits2));
+    assertEquals("Multiplication failed:", testExpected.toString(),
+      testNumber1.multiply(testNumber2).toString());
+    testExpected = new BigNum(digits1);
+    BigNum testRemainder = testExpected.divide(new BigNum(digits2));
+    ImmutableBigNum[] testDivision =
+      testNumber1.divideAndRemainder(testNumber2);
+    assertEquals("Division quotient failed:", testExpected.toString(),
+      testDivision[0].toString());
+    assertEquals("Division remainder failed:", testRemainder.toString(),
+      testDivision[1].toString());
+    assertEquals("Operand changed:", digits1, testNumber1.toString());
+    assertEquals("Operand changed:", digits2, testNumber2.toString());
+    // Special values follow BigNum
+    ImmutableBigNum testZero = new ImmutableBigNum(0);
+    assertEquals("Division by zero failed:", "null",
+      testNumber1.divide(testZero).toString());
+    // Remainders of special values are real zeroes, never undefined
+    ImmutableBigNum testNull = new ImmutableBigNum(new BigNum());
+    testDivision = testZero.divideAndRemainder(testZero);
+    assertEquals("Zero-by-zero quotient failed:", "null",
+      testDivision[0].toString());
+    assertEquals("Zero-by-zero remainder failed:", testZero,
+      testDivision[1]);
+    testDivision = testNull.divideAndRemainder(testNumber2);
+    assertEquals("Null-by-number quotient failed:", "null",
+      testDivision[0].toString());
+    assertEquals("Null-by-number remainder failed:", testZero,
+      testDivision[1]);
+    testDivision = testNull.divideAndRemainder(testZero);
+    assertEquals("Null-by-zero remainder failed:", testZero,
+      testDivision[1]);
+    testDivision = testNumber1.divideAndRemainder(testNull);
+    assertEquals("Number-by-null remainder failed:", testZero,
+      testDivision[1]);
+    assertEquals("Subtraction underflow failed:", "0",
+      testNumber2.subtract(testNumber1).toString());
+  }
+
+  @Test
+  public void testSharing() {
+    // Results equal to an operand are the operand itself
+    ImmutableBigNum testNumber = new ImmutableBigNum("123456789012345678901");
+    ImmutableBigNum testZero = new ImmutableBigNum(0);
+    ImmutableBigNum testOne = new ImmutableBigNum(1);
+    assertSame("Addition of zero failed:", testNumber,
+      testNumber.add(testZero));
+    assertSame("Multiplication by one failed:", testNumber,
+      testNumber.multiply(testOne));
+    assertSame("Division by one failed:", testNumber,
+      testNumber.divide(testOne));
+    // Conversion to BigNum is a copy
+    BigNum testCopy = testNumber.toBigNum();
+    testCopy.add(new BigNum(1));
+    assertEquals("Copy is not independent:", "123456789012345678901",
+      testNumber.toString());
+  }
+
+  @Test
+  public void testEqualsHashCode() {
+    // Equal values are equal keys in any radix
+    byte hex = 16;
+    ImmutableBigNum testNumber1 = new ImmutableBigNum("18446744073709551616");
+    ImmutableBigNum testNumber2 = new ImmutableBigNum("10000000000000000", hex);
+    ImmutableBigNum testNumber3 = new ImmutableBigNum("18446744073709551617");
+    assertEquals("Equality failed:", testNumber1, testNumber2);
+    assertEquals("Hash code failed:", testNumber1.hashCode(),
+      testNumber2.hashCode());
+    assertNotEquals("Inequality failed:", testNumber1, testNumber3);
+    assertEquals("Radix change failed:", "10000000000000000",
+      testNumber1.withRadix(hex).toString());
+    Map<ImmutableBigNum, String> testCache = new HashMap<>();
+    testCache.put(testNumber1, "2^64");
+    assertEquals("Hash map lookup failed:", "2^64",
+      testCache.get(new ImmutableBigNum(1 << 16)
+        .multiply(new ImmutableBigNum(1 << 16))
+        .multiply(new ImmutableBigNum(1 << 16))
+        .multiply(new ImmutableBigNum(1 << 16))));
+  }
+}
+
+// vim: set si et ts=2 sw=2 :
@@ -0,0 +1,152 @@
+/*
+ * @(#)MappedBigNumTest.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static com.github.valv.RandomDigits.randomDigits;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import com.github.valv.BigNum;
+import com.github.valv.MappedBigNum;
+
+/**
+ * MappedBigNumTest class provides JUnit (4.0 and higher) test case for
+ * MappedBigNum class.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+public class MappedBigNumTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testStreaming() throws IOException {
+    // Sums, differences and word products span many small regions
+    Random random = new Random(31);
+    String digits1 = randomDigits(random, 3000);
+    String digits2 = randomDigits(random, 1200);
+    byte radix = 10;
+    byte hex = 16;
+    Path testPath1 = folder.newFile().toPath();
+    Path testPath2 = folder.newFile().toPath();
+    try (MappedBigNum testNumber1 = new MappedBigNum(testPath1, radix, 90);
+        MappedBigNum testNumber2 = new MappedBigNum(testPath2, radix, 90)) {
+      testNumber1.set(new BigNum(digits1));
+      testNumber2.set(new BigNum(digits2));
+      BigNum testExpected = new BigNum(digits1);
+      testExpected.add(new BigNum(digits2));
+      testNumber1.add(testNumber2);
+      assertEquals("Addition failed:", testExpected.toString(),
+        testNumber1.toString());
+      testNumber1.subtract(testNumber2);
+      assertEquals("Subtraction failed:", digits1, testNumber1.toString());
+      testNumber2.subtract(testNumber1);
+      assertEquals("Subtraction underflow failed:", "0",
+        testNumber2.toString());
+      testExpected = new BigNum(digits1);
+      testExpected.multiply(new BigNum("4294967295"));
+      testNumber1.multiply(-1); // word 0xffffffff
+      assertEquals("Word multiplication failed:", testExpected.toString(),
+        testNumber1.toString());
+      // Carries run through a whole region
+      testNumber2.set(new BigNum("ffffffffffffffffffffffffffffffff", hex));
+      testNumber1.set(new BigNum(1));
+      testNumber2.add(testNumber1);
+      assertEquals("Carry failed:", "340282366920938463463374607431768211456",
+        testNumber2.toString());
+    }
+    // The value stays in the file, cut to its limbs
+    assertEquals("File length failed:", 4, Files.size(testPath1));
+    try (MappedBigNum testNumber = new MappedBigNum(testPath1)) {
+      assertEquals("Reopening failed:", "1", testNumber.toString());
+    }
+  }
+
+  @Test
+  public void testMultiply() throws IOException {
+    // Products by regions are the same as in memory, squares included
+    Random random = new Random(37);
+    String digits1 = randomDigits(random, 5000);
+    String digits2 = randomDigits(random, 700);
+    byte radix = 10;
+    try (MappedBigNum testNumber1 = new MappedBigNum(
+          folder.newFile().toPath(), radix, 400);
+        MappedBigNum testNumber2 = new MappedBigNum(
+          folder.newFile().toPath(), radix, 400)) {
+      testNumber1.set(new BigNum(digits1));
+      testNumber2.set(new BigNum(digits2));
+      BigNum testExpected = new BigNum(digits1);
+      testExpected.multiply(new BigNum(digits2));
+      testNumber1.multiply(testNumber2);
+      assertEquals("Multiplication failed:", testExpected.toString(),
+        testNumber1.toString());
+      testExpected.square();
+      testNumber1.multiply(testNumber1);
+      assertEquals("Square failed:", testExpected.toString(),
+        testNumber1.toString());
+      try (MappedBigNum testZero = new MappedBigNum(
+            folder.newFile().toPath())) {
+        testNumber2.multiply(testZero);
+      }
+      assertEquals("Multiplication by zero failed:", "0",
+        testNumber2.toString());
+    }
+    assertEquals("Temporary files remain:", 3, folder.getRoot().list().length);
+  }
+
+  @Test
+  public void testSpectra() throws IOException {
+    // Operands of several long blocks are multiplied by their spectra
+    Random random = new Random(41);
+    String digits1 = randomDigits(random, 240000);
+    String digits2 = randomDigits(random, 170000);
+    byte radix = 10;
+    try (MappedBigNum testNumber1 = new MappedBigNum(
+          folder.newFile().toPath(), radix, 80000);
+        MappedBigNum testNumber2 = new MappedBigNum(
+          folder.newFile().toPath(), radix, 80000)) {
+      testNumber1.set(new BigNum(digits1));
+      testNumber2.set(new BigNum(digits2));
+      BigNum testExpected = new BigNum(digits1);
+      testExpected.multiply(new BigNum(digits2));
+      testNumber1.multiply(testNumber2);
+      assertEquals("Multiplication failed:", testExpected.toString(),
+        testNumber1.toString());
+      testExpected = new BigNum(digits2);
+      testExpected.square();
+      testNumber2.multiply(testNumber2);
+      assertEquals("Square failed:", testExpected.toString(),
+        testNumber2.toString());
+    }
+    assertEquals("Temporary files remain:", 2, folder.getRoot().list().length);
+  }
+}
+
+// vim: set si et ts=2 sw=2 :
@@ -0,0 +1,101 @@
+/*
+ * @(#)MutableBigNumTest.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static com.github.valv.RandomDigits.randomDigits;
+
+import java.util.Random;
+
+import com.github.valv.BigNum;
+import com.github.valv.MutableBigNum;
+
+/**
+ * MutableBigNumTest class provides JUnit (4.0 and higher) test case for
+ * MutableBigNum class.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+public class MutableBigNumTest {
+  @Test
+  public void testAccumulate() {
+    // Sum of numbers in the accumulator is the same as with BigNum
+    Random random = new Random(11);
+    MutableBigNum testAccumulator = new MutableBigNum(400);
+    BigNum testExpected = new BigNum(0);
+    int capacity = testAccumulator.capacity();
+    assertTrue("Capacity constructor failed:", capacity >= 400);
+    for (int index = 0; index < 100; index ++) {
+      BigNum testNumber = new BigNum(randomDigits(random, 300));
+      testAccumulator.addTo(testNumber);
+      testExpected.add(testNumber);
+      testAccumulator.addTo(index);
+      testExpected.add(new BigNum(index));
+    }
+    assertEquals("Accumulated sum failed:", testExpected.toString(),
+      testAccumulator.toString());
+    assertEquals("Accumulator capacity changed:", capacity,
+      testAccumulator.capacity());
+    assertEquals("Conversion to BigNum failed:", testExpected.toString(),
+      testAccumulator.toBigNum().toString());
+    testAccumulator.clear();
+    assertEquals("Clear failed:", "0", testAccumulator.toString());
+  }
+
+  @Test
+  public void testMultiplyAdd() {
+    // Products and fused multiply-add against BigNum arithmetic
+    Random random = new Random(13);
+    BigNum testNumber1 = new BigNum(randomDigits(random, 1500));
+    BigNum testNumber2 = new BigNum(randomDigits(random, 900));
+    MutableBigNum testAccumulator = new MutableBigNum(testNumber1);
+    testAccumulator.ensureCapacity(5000);
+    int capacity = testAccumulator.capacity();
+    testAccumulator.mulTo(testNumber2);
+    testAccumulator.mulTo(7);
+    BigNum testExpected = new BigNum(testNumber1);
+    testExpected.multiply(testNumber2);
+    testExpected.multiply(new BigNum(7));
+    assertEquals("Accumulated product failed:", testExpected.toString(),
+      testAccumulator.toString());
+    testAccumulator.fma(testNumber1, testNumber2);
+    testAccumulator.fma(testNumber2, 1000000007);
+    BigNum testProduct = new BigNum(testNumber1);
+    testProduct.multiply(testNumber2);
+    testExpected.add(testProduct);
+    testProduct = new BigNum(testNumber2);
+    testProduct.multiply(new BigNum(1000000007));
+    testExpected.add(testProduct);
+    assertEquals("Fused multiply-add failed:", testExpected.toString(),
+      testAccumulator.toString());
+    assertEquals("Accumulator capacity changed:", capacity,
+      testAccumulator.capacity());
+    testAccumulator.mulTo(new BigNum(0));
+    assertEquals("Product with zero failed:", "0",
+      testAccumulator.toString());
+  }
+}
+
+// vim: set si et ts=2 sw=2 :
@@ -0,0 +1,194 @@
+/*
+ * @(#)OffHeapBigNumTest.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static com.github.valv.RandomDigits.randomDigits;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import com.github.valv.BigNum;
+import com.github.valv.MutableBigNum;
+import com.github.valv.OffHeapBigNum;
+import com.github.valv.ScratchArena;
+
+/**
+ * OffHeapBigNumTest class provides JUnit (4.0 and higher) test case for
+ * OffHeapBigNum class.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+public class OffHeapBigNumTest {
+  @Test
+  public void testArithmetic() {
+    // Results are the same as with BigNum, operands may be on or off heap
+    Random random = new Random(23);
+    String digits1 = randomDigits(random, 900);
+    String digits2 = randomDigits(random, 400);
+    String digits3 = randomDigits(random, 200);
+    BigNum testExpected = new BigNum(digits1);
+    testExpected.multiply(new BigNum(digits2));
+    OffHeapBigNum testNumber = new OffHeapBigNum(new BigNum(digits1), 300);
+    OffHeapBigNum testOperand = new OffHeapBigNum(new BigNum(digits2), 300);
+    assertTrue("Parking failed:", testNumber.isOffHeap());
+    testNumber.multiply(testOperand);
+    assertTrue("Parking failed:", testNumber.isOffHeap());
+    assertEquals("Multiplication failed:", testExpected.toString(),
+      testNumber.toString());
+    BigNum testHeap = new BigNum(digits2);
+    testHeap.multiply(testNumber);
+    testExpected.multiply(new BigNum(digits2));
+    assertEquals("Heap multiplication failed:", testExpected.toString(),
+      testHeap.toString());
+    testNumber.add(new BigNum(digits3));
+    testExpected = new BigNum(digits1);
+    testExpected.multiply(new BigNum(digits2));
+    testExpected.add(new BigNum(digits3));
+    assertEquals("Addition failed:", testExpected.toString(),
+      testNumber.toString());
+    // Division with an off-heap remainder, small values come back on heap
+    OffHeapBigNum testRemainder = new OffHeapBigNum(new BigNum(digits1), 300);
+    testNumber.divide(testOperand, testRemainder);
+    assertEquals("Division quotient failed:", digits1, testNumber.toString());
+    assertEquals("Division remainder failed:", digits3,
+      testRemainder.toString());
+    testNumber.subtract(new BigNum(digits1));
+    assertFalse("Unparking failed:", testNumber.isOffHeap());
+    assertEquals("Subtraction failed:", "0", testNumber.toString());
+    // Squares, shifts and accumulators
+    testNumber = new OffHeapBigNum(new BigNum(digits1), 300);
+    testNumber.multiply(testNumber);
+    testNumber.shiftRight(900);
+    testExpected = new BigNum(digits1);
+    testExpected.square();
+    testExpected.shiftRight(900);
+    assertEquals("Square failed:", testExpected.toString(),
+      testNumber.toString());
+    MutableBigNum testAccumulator = new MutableBigNum(2000);
+    testAccumulator.fma(testNumber, testOperand);
+    testExpected.multiply(testOperand);
+    assertEquals("Fused multiply and add failed:", testExpected.toString(),
+      testAccumulator.toString());
+  }
+
+  @Test
+  public void testBuffer() {
+    // Addition and subtraction of several bands run on the buffer, repeated
+    // products reuse arrays of the arena
+    Random random = new Random(31);
+    String digits1 = randomDigits(random, 120000);
+    String digits2 = randomDigits(random, 80000);
+    OffHeapBigNum testNumber = new OffHeapBigNum(new BigNum(digits1), 1000);
+    OffHeapBigNum testOperand = new OffHeapBigNum(new BigNum(digits2), 1000);
+    BigNum testExpected = new BigNum(digits1);
+    testExpected.add(new BigNum(digits2));
+    testNumber.add(testOperand);
+    assertTrue("Parking failed:", testNumber.isOffHeap());
+    assertEquals("Buffer addition failed:", testExpected.toString(),
+      testNumber.toString());
+    testNumber.subtract(new BigNum(digits1));
+    assertTrue("Parking failed:", testNumber.isOffHeap());
+    assertEquals("Buffer subtraction failed:", digits2,
+      testNumber.toString());
+    testNumber.subtract(testOperand);
+    assertFalse("Unparking failed:", testNumber.isOffHeap());
+    assertEquals("Buffer subtraction failed:", "0", testNumber.toString());
+    BigNum testHeap = new BigNum(digits1);
+    testHeap.subtract(testOperand);
+    testExpected = new BigNum(digits1);
+    testExpected.subtract(new BigNum(digits2));
+    assertEquals("Heap subtraction failed:", testExpected.toString(),
+      testHeap.toString());
+    OffHeapBigNum testFactor = new OffHeapBigNum(new BigNum(digits2), 1000);
+    testFactor.multiply(testOperand);
+    ScratchArena.resetStats();
+    for (int index = 0; index < 4; index ++) {
+      testFactor.divide(testOperand, new BigNum());
+      testFactor.multiply(testOperand);
+    }
+    assertTrue("Reuse failed:", ScratchArena.reuseRate() > 0.5);
+    testFactor.divide(testOperand, new BigNum());
+    assertEquals("Repeated products failed:", digits2, testFactor.toString());
+    testNumber.close();
+    testOperand.close();
+    testFactor.close();
+  }
+
+  @Test
+  public void testClose() {
+    // Closing frees native memory and makes the value null
+    Random random = new Random(29);
+    String digits = randomDigits(random, 1000);
+    OffHeapBigNum testNumber = new OffHeapBigNum(new BigNum(digits), 100);
+    assertTrue("Native memory failed:", testNumber.offHeapSize() > 0);
+    ByteBuffer testBuffer = ByteBuffer.allocateDirect(testNumber.binarySize());
+    testNumber.writeTo(testBuffer);
+    testBuffer.flip();
+    assertEquals("Binary form failed:", digits,
+      BigNum.readFrom(testBuffer).toString());
+    assertEquals("Length failed:", 1000, testNumber.length());
+    try (OffHeapBigNum testScoped = testNumber) {
+      assertEquals("Conversion failed:", digits, testScoped.toString());
+    }
+    assertEquals("Native memory failed:", 0, testNumber.offHeapSize());
+    assertEquals("Close failed:", "null", testNumber.toString());
+  }
+
+  @Test
+  public void testSharedClose() throws InterruptedException {
+    // Other threads see the value or null while the number is closed
+    Random random = new Random(31);
+    final String digits = randomDigits(random, 1000);
+    final OffHeapBigNum testNumber = new OffHeapBigNum(new BigNum(digits),
+      100);
+    final String[] failure = new String[1];
+    Thread[] readers = new Thread[4];
+    for (int index = 0; index < readers.length; index ++) {
+      readers[index] = new Thread(new Runnable() {
+        public void run() {
+          String text;
+          do {
+            BigNum sum = new BigNum(1);
+            sum.add(testNumber);
+            text = testNumber.toString();
+            if (!text.equals(digits) && !text.equals("null")) {
+              failure[0] = text;
+            }
+          } while (!text.equals("null"));
+        }
+      });
+      readers[index].start();
+    }
+    Thread.sleep(50);
+    testNumber.close();
+    for (Thread reader : readers) reader.join();
+    assertEquals("Shared close failed:", null, failure[0]);
+    assertEquals("Native memory failed:", 0, testNumber.offHeapSize());
+  }
+}
+
+// vim: set si et ts=2 sw=2 :
@@ -0,0 +1,106 @@
+/*
+ * @(#)ScratchArenaTest.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static com.github.valv.RandomDigits.randomDigits;
+
+import java.util.Random;
+
+import com.github.valv.BigNum;
+import com.github.valv.ScratchArena;
+
+/**
+ * ScratchArenaTest class provides JUnit (4.0 and higher) test case for
+ * ScratchArena class.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+public class ScratchArenaTest {
+  @Test
+  public void testReuse() throws InterruptedException {
+    // Repeated products and conversions reuse borrowed temporaries
+    Random random = new Random(41);
+    String digits1 = randomDigits(random, 20000);
+    String digits2 = randomDigits(random, 15000);
+    BigNum testNumber1 = new BigNum(digits1);
+    BigNum testNumber2 = new BigNum(digits2);
+    ScratchArena.resetStats();
+    String testExpected = null;
+    for (int round = 0; round < 4; round ++) {
+      BigNum testProduct = new BigNum(testNumber1);
+      testProduct.multiply(testNumber2);
+      BigNum testRemainder = testProduct.divide(testNumber2);
+      assertEquals("Division failed:", digits1, testProduct.toString());
+      assertEquals("Remainder failed:", "0", testRemainder.toString());
+      testProduct.multiply(testNumber2);
+      if (testExpected == null) testExpected = testProduct.toString();
+      assertEquals("Multiplication failed:", testExpected,
+        testProduct.toString());
+    }
+    assertTrue("Borrowing failed:", ScratchArena.borrows() > 0);
+    assertTrue("Reuse failed:", ScratchArena.reuseRate() > 0.5);
+    assertTrue("Peak footprint failed:",
+      ScratchArena.peakFootprint() >= ScratchArena.footprint());
+    // Other threads (short lived ones too) share the pool
+    String[] testResult = new String[1];
+    Thread testThread = new Thread(() -> {
+      BigNum testSquare = new BigNum(digits1);
+      testSquare.multiply(testSquare);
+      testSquare.divide(new BigNum(digits1));
+      testResult[0] = testSquare.toString();
+    });
+    testThread.start();
+    testThread.join();
+    assertEquals("Square failed:", digits1, testResult[0]);
+  }
+
+  @Test
+  public void testShortLivedThreads() throws InterruptedException {
+    // Arrays of ended threads are reused by the next ones, and the footprint
+    // (pooled arrays only) stays the same from thread to thread
+    String digits = randomDigits(new Random(42), 12000);
+    long testFootprint = 0;
+    for (int round = 0; round < 16; round ++) {
+      if (round == 2) {
+        ScratchArena.resetStats();
+        testFootprint = ScratchArena.footprint();
+      }
+      Thread testThread = new Thread(() -> {
+        BigNum testSquare = new BigNum(digits);
+        testSquare.multiply(testSquare);
+        testSquare.divide(new BigNum(digits));
+      });
+      testThread.start();
+      testThread.join();
+    }
+    assertTrue("Reuse across threads failed:",
+      ScratchArena.reuseRate() > 0.5);
+    assertEquals("Footprint of ended threads failed:", testFootprint,
+      ScratchArena.footprint());
+  }
+}
+
+// vim: set si et ts=2 sw=2 :
@@ -0,0 +1,115 @@
+/*
+ * @(#)LimbKernelsTest.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+package com.github.valv;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * LimbKernelsTest class provides JUnit (4.0 and higher) test case for
+ * the loaded limb kernels against the scalar ones. It lives in the package
+ * of the kernels, and it is skipped unless SIMD kernels are loaded (the
+ * vector profile forces them on the preferred and on 256 bit vectors).
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+public class LimbKernelsTest {
+  private static final LimbKernels SCALAR = new LimbKernels();
+
+  @Test
+  public void testCarryChains() {
+    // Sums and differences with long carry chains at every lane position
+    assumeTrue(!LimbKernels.KERNELS.name().equals(SCALAR.name()));
+    LimbKernels testKernels = LimbKernels.KERNELS;
+    Random random = new Random(53);
+    for (int round = 0; round < 20000; round ++) {
+      int testLength = random.nextInt(100);
+      int testOffset = random.nextInt(4);
+      int[] testX = randomLimbs(random, testLength + testOffset);
+      int[] testY = randomLimbs(random, testLength + testOffset);
+      int testCarry = random.nextInt(2);
+      int[] testExpected = testY.clone();
+      int[] testActual = testY.clone();
+      assertEquals("Carry of addition failed:",
+        SCALAR.add(testExpected, testOffset, testX, 0, testLength, testCarry),
+        testKernels.add(testActual, testOffset, testX, 0, testLength,
+          testCarry));
+      assertArrayEquals("Addition failed:", testExpected, testActual);
+      testExpected = testY.clone();
+      testActual = testY.clone();
+      assertEquals("Borrow of subtraction failed:",
+        SCALAR.subtract(testExpected, 0, testX, testOffset, testLength,
+          testCarry),
+        testKernels.subtract(testActual, 0, testX, testOffset, testLength,
+          testCarry));
+      assertArrayEquals("Subtraction failed:", testExpected, testActual);
+      int[] testEqual = Arrays.copyOf(testX, testLength);
+      if (testLength > 0 && random.nextBoolean()) {
+        testEqual[random.nextInt(testLength)] ^= 1 << random.nextInt(32);
+      }
+      assertEquals("Comparison failed:",
+        SCALAR.compare(testX, testEqual, testLength),
+        testKernels.compare(testX, testEqual, testLength));
+      int testMultiplier = (int) randomLimb(random);
+      testExpected = testY.clone();
+      testActual = testY.clone();
+      assertEquals("Carry of multiplication failed:",
+        SCALAR.multiplyAddWord(testExpected, testLength, testMultiplier,
+          testCarry),
+        testKernels.multiplyAddWord(testActual, testLength, testMultiplier,
+          testCarry));
+      assertArrayEquals("Multiplication failed:", testExpected, testActual);
+    }
+  }
+
+  // Limbs with runs of all ones and zeroes, where carries propagate
+  private static int[] randomLimbs(Random random, int length) {
+    int[] limbs = new int[length];
+    for (int index = 0; index < length; index ++) {
+      limbs[index] = (int) randomLimb(random);
+    }
+    return limbs;
+  }
+
+  private static long randomLimb(Random random) {
+    switch (random.nextInt(4)) {
+      case 0:
+        return -1;
+      case 1:
+        return 0;
+      case 2:
+        return random.nextBoolean() ? 1 : Integer.MIN_VALUE;
+      default:
+        return random.nextInt();
+    }
+  }
+}
+
+// vim: set si et ts=2 sw=2 :
@@ -0,0 +1,55 @@
+/*
+ * @(#)RandomDigits.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+package com.github.valv;
+
+import java.util.Random;
+
+/**
+ * RandomDigits class makes random numbers as digit strings for tests and
+ * benchmarks.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+public final class RandomDigits {
+  private RandomDigits() {
+  }
+
+  // Random decimal digits of the given length, the first is not zero
+  public static String randomDigits(Random random, int length) {
+    return randomDigits(random, length, 10);
+  }
+
+  // The same in the given radix
+  public static String randomDigits(Random random, int length, int radix) {
+    StringBuilder digits = new StringBuilder(length);
+    digits.append(Character.forDigit(1 + random.nextInt(radix - 1), radix));
+    while (digits.length() < length) {
+      digits.append(Character.forDigit(random.nextInt(radix), radix));
+    }
+    return digits.toString();
+  }
+}
+
+// vim: set si et ts=2 sw=2 :
@@ -0,0 +1,132 @@
+/*
+ * @(#)VectorLimbKernels.java        1.1 18/10/26
+ *
+ * Copyright (c) 2017 Vladimir Valeyev
+ *
+ * This file is part of Java Big Num Tutorial.
+ *
+ * Java Big Num Tutorial is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Java Big Num Tutorial is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Java Big Num Tutorial. If not, see
+ * <http://www.gnu.org/licenses/>
+ *
+ * <valv> at <linuxmail dot org>, 18 October 2026
+ */
+
+package com.github.valv;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * VectorLimbKernels class implements the carry loops with the Vector API
+ * (jdk.incubator.vector, built by the vector profile only). Lanes of a block
+ * are added at once, then carries generated by the lanes are shifted by one
+ * lane (the first lane takes the running carry) and added in turn, which is
+ * exact unless a carry could propagate through a lane (the lane sum is all
+ * ones, for subtraction the limbs are equal). Such blocks are rare for real
+ * data and go through the scalar loop. On JDK 17 the lane shift pays off
+ * with 512 bit vectors only, with shorter ones the scalar kernels are used
+ * unless the vector kernels are forced (see LimbKernels).
+ * Multiplication by a word stays scalar: the widening lane multiplication
+ * of JDK 17 was measured slower than the scalar loop.
+ *
+ * @version 1.1 18 Oct 2026
+ * @author Vladimir Valeyev
+ */
+final class VectorLimbKernels extends LimbKernels {
+  // Preferred species or the one of the size given by the property
+  static final VectorSpecies<Integer> SPECIES = VECTOR_MODE.matches("[0-9]+")
+      ? VectorSpecies.of(int.class,
+          VectorShape.forBitSize(Integer.parseInt(VECTOR_MODE)))
+      : IntVector.SPECIES_PREFERRED;
+  static final int LANES = SPECIES.length();
+  static final IntVector ZERO = IntVector.zero(SPECIES);
+
+  // Fewest lanes which were measured faster than the scalar loops
+  static final int MIN_LANES = 16;
+
+  VectorLimbKernels() {
+    if (LANES < MIN_LANES && !forced()) {
+      throw new LinkageError("SIMD lanes are too short"); // use scalar
+    }
+  }
+
+  @Override
+  String name() {
+    return "vector" + LANES;
+  }
+
+  @Override
+  int add(int[] z, int zOffset, int[] x, int xOffset, int length,
+      int carry) {
+    int index = 0;
+    for (; index + LANES <= length; index += LANES) {
+      int to = zOffset + index, from = xOffset + index;
+      IntVector addend = IntVector.fromArray(SPECIES, x, from);
+      IntVector sums = IntVector.fromArray(SPECIES, z, to).add(addend);
+      if (sums.compare(VectorOperators.EQ, -1).anyTrue()) {
+        carry = super.add(z, to, x, from, LANES, carry); // propagates
+        continue;
+      }
+      // Lane k takes the carry of lane k - 1, the first one takes the
+      // running carry
+      IntVector carries = ZERO.blend(1, sums.compare(
+          VectorOperators.UNSIGNED_LT, addend));
+      sums.add(IntVector.broadcast(SPECIES, carry).slice(LANES - 1, carries))
+          .intoArray(z, to);
+      carry = carries.lane(LANES - 1);
+    }
+    return super.add(z, zOffset + index, x, xOffset + index, length - index,
+        carry);
+  }
+
+  @Override
+  int subtract(int[] z, int zOffset, int[] x, int xOffset, int length,
+      int borrow) {
+    int index = 0;
+    for (; index + LANES <= length; index += LANES) {
+      int to = zOffset + index, from = xOffset + index;
+      IntVector minuend = IntVector.fromArray(SPECIES, z, to);
+      IntVector subtrahend = IntVector.fromArray(SPECIES, x, from);
+      if (minuend.compare(VectorOperators.EQ, subtrahend).anyTrue()) {
+        borrow = super.subtract(z, to, x, from, LANES, borrow); // propagates
+        continue;
+      }
+      // Lane k takes the borrow of lane k - 1, the first one takes the
+      // running borrow
+      IntVector borrows = ZERO.blend(1, minuend.compare(
+          VectorOperators.UNSIGNED_LT, subtrahend));
+      minuend.sub(subtrahend).sub(IntVector.broadcast(SPECIES, borrow)
+          .slice(LANES - 1, borrows)).intoArray(z, to);
+      borrow = borrows.lane(LANES - 1);
+    }
+    return super.subtract(z, zOffset + index, x, xOffset + index,
+        length - index, borrow);
+  }
+
+  @Override
+  int compare(int[] x, int[] y, int length) {
+    int index = length;
+    for (; index >= LANES; index -= LANES) { // skip equal blocks from the top
+      if (IntVector.fromArray(SPECIES, x, index - LANES).compare(
+          VectorOperators.NE, IntVector.fromArray(SPECIES, y, index - LANES))
+          .anyTrue()) {
+        break;
+      }
+    }
+    return super.compare(x, y, index);
+  }
+}
+
+/* vim: set si et ts=2 sw=2: */